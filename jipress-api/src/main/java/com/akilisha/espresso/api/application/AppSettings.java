@@ -12,6 +12,14 @@ public class AppSettings extends EnumMap<AppSettings.Setting, Object> {
         put(Setting.ACCEPTOR_THREADS, 1);
         put(Setting.SELECTOR_THREADS, 1);
         put(Setting.ACCEPT_QUEUE_SIZE, 128);
+        put(Setting.MIN_THREADS, 8);
+        put(Setting.MAX_THREADS, 200);
+        put(Setting.THREAD_IDLE_TIMEOUT, 60_000);
+        put(Setting.MAX_QUEUED_JOBS, 10_000);
+        put(Setting.SHED_QUEUE_DEPTH, 0);
+        put(Setting.SHED_QUEUE_WAIT, 0);
+        put(Setting.SHED_RETRY_AFTER, 1);
+        put(Setting.ASYNC_TIMEOUT, 30_000);
         put(Setting.SUBDOMAIN_OFFSET, 2);
         put(Setting.ENV, "development");
         put(Setting.ETAG, "weak");
@@ -43,7 +51,15 @@ public class AppSettings extends EnumMap<AppSettings.Setting, Object> {
         TEMPLATES_EXT("templates ext", String.class, "The file extension suffix for view files e.g. .mvel (for MVEL), .fmt (for FreeMarker)"),
         ACCEPTOR_THREADS("acceptors", int.class, "Number of threads accepting client connection requests"),
         SELECTOR_THREADS("selectors", String.class, "Number of threads which the acceptor can dispatch network events to"),
-        ACCEPT_QUEUE_SIZE("acceptQueueSize", String.class, "Number of requests that can be queued up before they start dropping");
+        ACCEPT_QUEUE_SIZE("acceptQueueSize", String.class, "Number of requests that can be queued up before they start dropping"),
+        MIN_THREADS("minThreads", int.class, "Minimum number of threads kept alive in the server's thread pool"),
+        MAX_THREADS("maxThreads", int.class, "Maximum number of threads in the server's thread pool"),
+        THREAD_IDLE_TIMEOUT("threadIdleTimeout", int.class, "Milliseconds that a thread above the minimum may stay idle before it is stopped"),
+        MAX_QUEUED_JOBS("maxQueuedJobs", int.class, "Number of jobs that can wait for a free thread, after which new jobs are rejected"),
+        SHED_QUEUE_DEPTH("shedQueueDepth", int.class, "Number of waiting jobs at which new requests are turned away with a 503. 0 disables this check"),
+        SHED_QUEUE_WAIT("shedQueueWait", int.class, "Milliseconds that a request may have waited for a thread before it is turned away with a 503. 0 disables this check"),
+        SHED_RETRY_AFTER("shedRetryAfter", int.class, "Seconds sent in the Retry-After header of a request that has been turned away"),
+        ASYNC_TIMEOUT("asyncTimeout", int.class, "Milliseconds that a request may stay suspended on an async middleware before it fails with a timeout. 0 means no timeout");
 
         public final String property;
         public final Class<?> type;
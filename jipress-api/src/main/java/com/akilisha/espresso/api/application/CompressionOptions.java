@@ -0,0 +1,61 @@
+package com.akilisha.espresso.api.application;
+
+import java.util.EnumMap;
+
+public class CompressionOptions extends EnumMap<CompressionOptions.Option, Object> {
+
+    CompressionOptions() {
+        super(Option.class);
+    }
+
+    public String[] encodings() {
+        return (String[]) get(Option.ENCODINGS);
+    }
+
+    public int minSize() {
+        return (int) get(Option.MIN_SIZE);
+    }
+
+    public int level() {
+        return (int) get(Option.LEVEL);
+    }
+
+    // excluded types win over included ones. A type ending in '/*' matches everything under it, e.g. 'text/*'
+    public boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int params = contentType.indexOf(';');
+        String type = (params > -1 ? contentType.substring(0, params) : contentType).trim().toLowerCase();
+        return !matches((String[]) get(Option.EXCLUDED_TYPES), type) && matches((String[]) get(Option.INCLUDED_TYPES), type);
+    }
+
+    private static boolean matches(String[] rules, String type) {
+        if (rules == null) {
+            return false;
+        }
+        for (String rule : rules) {
+            if (rule.endsWith("/*") ? type.startsWith(rule.substring(0, rule.length() - 1)) : type.equals(rule)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public enum Option {
+
+        ENCODINGS("encodings", "Content codings to offer, in order of preference. Possible values are 'gzip' and 'deflate'."),
+        MIN_SIZE("minSize", "Responses known to be smaller than this many bytes are not compressed."),
+        LEVEL("level", "Compression level from 1 (fastest) to 9 (smallest), or -1 for the default."),
+        INCLUDED_TYPES("includedTypes", "Content types that are compressed."),
+        EXCLUDED_TYPES("excludedTypes", "Content types that are never compressed, even if they are included.");
+
+        public final String name;
+        public final String description;
+
+        Option(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.akilisha.espresso.api.application;
+
+public class CompressionOptionsBuilder {
+
+    String[] encodings = {"gzip", "deflate"};
+    int minSize = 1024;
+    int level = -1;
+    String[] includedTypes = {"text/*", "application/json", "application/javascript", "application/xml", "image/svg+xml"};
+    String[] excludedTypes = {};
+
+    private CompressionOptionsBuilder() {
+        //hide constructor
+    }
+
+    public static CompressionOptionsBuilder newBuilder() {
+        return new CompressionOptionsBuilder();
+    }
+
+    public CompressionOptionsBuilder encodings(String... encodings) {
+        this.encodings = encodings;
+        return this;
+    }
+
+    public CompressionOptionsBuilder minSize(int minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    public CompressionOptionsBuilder level(int level) {
+        this.level = level;
+        return this;
+    }
+
+    public CompressionOptionsBuilder includedTypes(String... includedTypes) {
+        this.includedTypes = includedTypes;
+        return this;
+    }
+
+    public CompressionOptionsBuilder excludedTypes(String... excludedTypes) {
+        this.excludedTypes = excludedTypes;
+        return this;
+    }
+
+    public CompressionOptions build() {
+        CompressionOptions options = new CompressionOptions();
+        options.put(CompressionOptions.Option.ENCODINGS, this.encodings);
+        options.put(CompressionOptions.Option.MIN_SIZE, this.minSize);
+        options.put(CompressionOptions.Option.LEVEL, this.level);
+        options.put(CompressionOptions.Option.INCLUDED_TYPES, this.includedTypes);
+        options.put(CompressionOptions.Option.EXCLUDED_TYPES, this.excludedTypes);
+        return options;
+    }
+}
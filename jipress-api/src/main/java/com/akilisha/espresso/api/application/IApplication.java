@@ -11,6 +11,7 @@ import com.akilisha.espresso.api.websocket.IWebsocketOptions;
 import com.akilisha.espresso.api.websocket.WebsocketHandlerCreator;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.net.ServerSocket;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -38,6 +39,8 @@ public interface IApplication extends IRouter {
 
     void engine(String engine, String templateDir, String fileExt);
 
+    void engine(String engine, String templateDir, String fileExt, Map<String, Object> params);
+
     void engine(IViewEngine engine, String fileExt);
 
     Object get(String setting);
@@ -84,6 +87,8 @@ public interface IApplication extends IRouter {
 
     void render(String viewName, Map<String, Object> model, BiConsumer<Exception, String> callback);
 
+    void render(String viewName, Map<String, Object> model, Writer writer) throws IOException;
+
     IRouter route(String contextPath);
 
     void set(String setting, Object value);
@@ -94,6 +99,8 @@ public interface IApplication extends IRouter {
 
     void use(CorsOptions options);
 
+    void use(CompressionOptions options);
+
     void use(IMiddleware... handlers);
 
     void use(String path, IMiddleware... handlers);
@@ -13,6 +13,10 @@ public enum StartupEnv {
     MULTIPART_MAX_FILE_SIZE("maxFileSize", "maximum size permitted for uploaded file. Default is 1MB", 1_000_000L),
     MULTIPART_MAX_REQ_SIZE("maxRequestSize", "maximum size allowed for multipart/form-data request. Default is 10MB", 10_000_000L),
     MULTIPART_FILE_THRESHOLD("fileSizeThreshold", "file size threshold before which it is written to disk. Default is 0", 0),
+    JSON_MAX_BODY_SIZE("maxJsonSize", "maximum size allowed for an application/json request body. Default is 10MB", 10_000_000L),
+    FORM_MAX_BODY_SIZE("maxFormSize", "maximum size allowed for an x-www-form-urlencoded request body. Default is 1MB", 1_000_000L),
+    FORM_MAX_FIELDS("maxFormFields", "maximum number of fields allowed in an x-www-form-urlencoded request body. Default is 1000", 1000),
+    FORM_MAX_KEY_LENGTH("maxFormKeyLength", "maximum length in bytes of a field name in an x-www-form-urlencoded request body. Default is 256", 256),
     SERVER_HOST("host", "server hostname or ipv4 address", "127.0.0.1"),
     SERVER_PORT("port", "server listening port", 3000),
     SERVER_SECURE_PORT("securePort", "server secure listening port", 3443),
@@ -24,7 +28,17 @@ public enum StartupEnv {
     RESOURCE_CONTEXT("resourceCtx", "root context path for accessing static resources", "/"),
     RESOURCE_WELCOME_FILES("welcomeFiles", "comma-separated list of default landing pages", "index.html"),
     RESOURCE_ACCEPT_RANGES("acceptRanges", "accepts ranges option for static resources", true),
-    RESOURCE_LIST_DIRECTORIES("listDirectories", "list directories option for static resources", false);
+    RESOURCE_LIST_DIRECTORIES("listDirectories", "list directories option for static resources", false),
+    ROUTE_MATCHER("routeMatcher", "path matching strategy for routes, either 'regex' or 'radix'", "regex"),
+    POOL_REQUESTS("poolRequests", "recycle request-scoped objects between requests instead of allocating new ones", false),
+    VIRTUAL_THREADS("virtualThreads", "handle requests on virtual threads instead of the server's pool threads", false),
+    MIN_THREADS("minThreads", "minimum number of threads kept alive in the server's thread pool. Default is 8", 8),
+    MAX_THREADS("maxThreads", "maximum number of threads in the server's thread pool. Default is 200", 200),
+    THREAD_IDLE_TIMEOUT("threadIdleTimeout", "milliseconds a thread above the minimum may stay idle before it is stopped. Default is 60000", 60_000),
+    MAX_QUEUED_JOBS("maxQueuedJobs", "number of jobs that can wait for a free thread before new ones are rejected. Default is 10000", 10_000),
+    SHED_QUEUE_DEPTH("shedQueueDepth", "number of waiting jobs at which requests are turned away with a 503. Default is 0, which is off", 0),
+    SHED_QUEUE_WAIT("shedQueueWait", "milliseconds a request may wait for a thread before it is turned away with a 503. Default is 0, which is off", 0),
+    SHED_RETRY_AFTER("shedRetryAfter", "seconds sent in the Retry-After header of a request that was turned away. Default is 1", 1);
 
     public final String property;
     public final String description;
@@ -5,6 +5,8 @@ import com.akilisha.espresso.api.response.IResponse;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public interface IBodyParser {
 
@@ -18,7 +20,25 @@ public interface IBodyParser {
         return type.cast(this.read(request));
     }
 
+    // the bundled parsers wait for the body without holding on to a thread. One that does not override this reads it
+    // with 'read' instead, on the calling thread
+    default CompletionStage<Object> readAsync(IRequest request) {
+        try {
+            return CompletableFuture.completedFuture(this.read(request));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default <T> CompletionStage<T> readAsync(IRequest request, Class<T> type) {
+        return this.readAsync(request).thenApply(type::cast);
+    }
+
     default void write(IResponse response, Object data) {
         //implement where needed
     }
+
+    default boolean writes() {
+        return false; // true for parsers that implement 'write', so that responses can be negotiated with them
+    }
 }
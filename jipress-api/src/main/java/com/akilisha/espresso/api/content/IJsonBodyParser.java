@@ -0,0 +1,13 @@
+package com.akilisha.espresso.api.content;
+
+import com.akilisha.espresso.api.request.IRequest;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+public interface IJsonBodyParser extends IBodyParser {
+
+    void read(IRequest request, IJsonTokenListener listener) throws IOException; // push each token to the listener as it is decoded
+
+    <T> void readArray(IRequest request, Class<T> type, Consumer<T> consumer) throws IOException; // bind each element of a top-level array, one at a time
+}
@@ -0,0 +1,12 @@
+package com.akilisha.espresso.api.content;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+public interface IJsonCodec {
+
+    void init(Map<String, Object> params); // provide a hook for initializing object variables after construction is already completed
+
+    void write(Object value, OutputStream out) throws IOException; // serialize as UTF-8 JSON straight into the stream
+}
@@ -0,0 +1,7 @@
+package com.akilisha.espresso.api.content;
+
+@FunctionalInterface
+public interface IJsonTokenListener {
+
+    void onToken(JsonToken token, String value); // value is the text for FIELD_NAME, STRING and NUMBER tokens, and null otherwise
+}
@@ -0,0 +1,11 @@
+package com.akilisha.espresso.api.content;
+
+import com.akilisha.espresso.api.request.IRequest;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+public interface IMultipartBodyParser extends IBodyParser {
+
+    Iterator<IPart> parts(IRequest request) throws IOException; // each part is parsed off the request stream as the iterator gets to it. A part is only valid until the next one is asked for
+}
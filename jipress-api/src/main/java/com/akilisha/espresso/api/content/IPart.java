@@ -0,0 +1,27 @@
+package com.akilisha.espresso.api.content;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+
+public interface IPart {
+
+    String name();
+
+    String fileName(); // null for a plain form field
+
+    String contentType();
+
+    Map<String, String> headers(); // with lower-case names
+
+    InputStream content(); // streams the part's bytes, and can only be read once
+
+    Path saveTo(Path file) throws IOException; // streams the rest of the part's bytes into the file
+
+    String text() throws IOException; // the rest of the part's bytes as UTF-8 text
+
+    long size(); // the bytes read so far
+
+    String digest(); // hex SHA-256 of the bytes read so far, i.e. of the whole part once it has been read to the end
+}
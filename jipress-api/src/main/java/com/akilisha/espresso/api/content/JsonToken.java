@@ -0,0 +1,15 @@
+package com.akilisha.espresso.api.content;
+
+public enum JsonToken {
+
+    START_OBJECT,
+    END_OBJECT,
+    START_ARRAY,
+    END_ARRAY,
+    FIELD_NAME,
+    STRING,
+    NUMBER,
+    TRUE,
+    FALSE,
+    NULL
+}
@@ -0,0 +1,176 @@
+package com.akilisha.espresso.api.content;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class MediaType {
+
+    static final int MAX_CACHED = 512;
+    static final Map<String, MediaType> parsedTypes = new ConcurrentHashMap<>();
+    static final Map<String, List<MediaType>> parsedRanges = new ConcurrentHashMap<>();
+
+    private final String type;
+    private final String subtype;
+    private final String suffix;
+    private final String essence;
+    private final Map<String, String> params;
+    private final double quality;
+
+    private MediaType(String type, String subtype, Map<String, String> params) {
+        this.type = type;
+        this.subtype = subtype;
+        int plus = subtype.lastIndexOf('+');
+        this.suffix = plus > -1 ? subtype.substring(plus + 1) : null;
+        this.essence = type + "/" + subtype;
+        this.params = params;
+        this.quality = quality(params.get("q"));
+    }
+
+    // the same few header values arrive over and over, so each distinct one is only parsed once. The caches stop
+    // growing once full, so that made up values cannot fill up the heap
+    public static MediaType parse(String value) {
+        MediaType mediaType = parsedTypes.get(value);
+        if (mediaType == null) {
+            mediaType = parseType(value);
+            if (parsedTypes.size() < MAX_CACHED) {
+                parsedTypes.put(value, mediaType);
+            }
+        }
+        return mediaType;
+    }
+
+    // the media ranges of an Accept header, with the preferred ones first
+    public static List<MediaType> parseAccept(String header) {
+        if (header == null || header.isBlank()) {
+            return List.of();
+        }
+        List<MediaType> ranges = parsedRanges.get(header);
+        if (ranges == null) {
+            List<MediaType> parsed = new ArrayList<>();
+            for (String range : header.split(",")) {
+                if (!range.isBlank()) {
+                    parsed.add(parseType(range));
+                }
+            }
+            parsed.sort(Comparator.<MediaType>comparingDouble(MediaType::quality).reversed()
+                    .thenComparing(Comparator.comparingInt(MediaType::specificity).reversed()));
+            ranges = List.copyOf(parsed);
+            if (parsedRanges.size() < MAX_CACHED) {
+                parsedRanges.put(header, ranges);
+            }
+        }
+        return ranges;
+    }
+
+    // the available type which the Accept header prefers the most, or null if it accepts none of them. Ties go to the
+    // type listed first. Without an Accept header, anything goes
+    public static String negotiate(String acceptHeader, Collection<String> available) {
+        List<MediaType> ranges = parseAccept(acceptHeader);
+        if (ranges.isEmpty()) {
+            return available.isEmpty() ? null : available.iterator().next();
+        }
+        String best = null;
+        double bestQuality = 0;
+        for (String candidate : available) {
+            MediaType type = parse(candidate);
+            // the most specific range which matches decides the quality, e.g. 'text/html;q=0' overrides 'text/*'
+            MediaType match = null;
+            for (MediaType range : ranges) {
+                if (range.includes(type) && (match == null || range.specificity() > match.specificity())) {
+                    match = range;
+                }
+            }
+            if (match != null && match.quality > bestQuality) {
+                best = candidate;
+                bestQuality = match.quality;
+            }
+        }
+        return best;
+    }
+
+    private static MediaType parseType(String value) {
+        String[] parts = value.split(";");
+        String essence = parts[0].trim().toLowerCase(Locale.ROOT);
+        if (essence.equals("*")) {
+            essence = "*/*";
+        }
+        int slash = essence.indexOf('/');
+        String type = slash > -1 ? essence.substring(0, slash).trim() : essence;
+        String subtype = slash > -1 ? essence.substring(slash + 1).trim() : "";
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            int equals = parts[i].indexOf('=');
+            if (equals > 0) {
+                String name = parts[i].substring(0, equals).trim().toLowerCase(Locale.ROOT);
+                String paramValue = parts[i].substring(equals + 1).trim();
+                if (paramValue.length() > 1 && paramValue.startsWith("\"") && paramValue.endsWith("\"")) {
+                    paramValue = paramValue.substring(1, paramValue.length() - 1);
+                }
+                params.put(name, paramValue);
+            }
+        }
+        return new MediaType(type, subtype, Collections.unmodifiableMap(params));
+    }
+
+    private static double quality(String value) {
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Math.max(0, Math.min(1, Double.parseDouble(value)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String subtype() {
+        return subtype;
+    }
+
+    // e.g. 'json' for 'application/vnd.api+json'
+    public String suffix() {
+        return suffix;
+    }
+
+    public String essence() {
+        return essence;
+    }
+
+    public Map<String, String> params() {
+        return params;
+    }
+
+    public String charset() {
+        return params.get("charset");
+    }
+
+    public double quality() {
+        return quality;
+    }
+
+    // whether this type, taken as a range like 'text/*', covers the given type
+    public boolean includes(MediaType other) {
+        return (type.equals("*") || type.equals(other.type)) && (subtype.equals("*") || subtype.equals(other.subtype));
+    }
+
+    private int specificity() {
+        if (type.equals("*")) {
+            return 0;
+        }
+        if (subtype.equals("*")) {
+            return 1;
+        }
+        return params.keySet().stream().anyMatch(name -> !name.equals("q")) ? 3 : 2;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder value = new StringBuilder(essence);
+        params.forEach((name, paramValue) -> value.append(';').append(name).append('=').append(paramValue));
+        return value.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.akilisha.espresso.api.content;
+
+import java.io.Serial;
+
+// a request body came with a content type there is no parser for, or with none at all. The route handler answers it
+// with a 415, which error handlers are still free to change
+public class UnsupportedMediaTypeException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String contentType;
+
+    public UnsupportedMediaTypeException(String contentType) {
+        super(String.format("There is no content parser configured for the type %s", contentType));
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return this.contentType;
+    }
+}
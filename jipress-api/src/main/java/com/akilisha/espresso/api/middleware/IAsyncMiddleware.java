@@ -0,0 +1,18 @@
+package com.akilisha.espresso.api.middleware;
+
+import com.akilisha.espresso.api.request.IRequest;
+import com.akilisha.espresso.api.response.IResponse;
+
+import java.util.concurrent.CompletionStage;
+
+public interface IAsyncMiddleware extends IMiddleware {
+
+    // the next middleware in the chain is only invoked once the returned stage completes, and the request thread is
+    // not held up while it is pending. Completing exceptionally is the same as calling next.error(...)
+    CompletionStage<?> handleAsync(IRequest req, IResponse res, INext next);
+
+    @Override
+    default void handle(IRequest req, IResponse res, INext next) {
+        this.handleAsync(req, res, next).toCompletableFuture().join();
+    }
+}
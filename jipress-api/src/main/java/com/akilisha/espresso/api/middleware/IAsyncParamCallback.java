@@ -0,0 +1,17 @@
+package com.akilisha.espresso.api.middleware;
+
+import com.akilisha.espresso.api.request.IRequest;
+import com.akilisha.espresso.api.response.IResponse;
+
+import java.util.concurrent.CompletionStage;
+
+public interface IAsyncParamCallback extends IParamCallback {
+
+    // the same as IAsyncMiddleware, for a param callback - the route's handlers only run once the returned stage completes
+    CompletionStage<?> handleAsync(IRequest req, IResponse res, INext next, Object paramValue);
+
+    @Override
+    default void handle(IRequest req, IResponse res, INext next, Object paramValue) {
+        this.handleAsync(req, res, next, paramValue).toCompletableFuture().join();
+    }
+}
@@ -2,9 +2,15 @@ package com.akilisha.espresso.api.request;
 
 import com.akilisha.espresso.api.application.IApplication;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public interface IRequest {
@@ -65,5 +71,31 @@ public interface IRequest {
 
     byte[] readSync() throws IOException;
 
+    InputStream inputStream() throws IOException;
+
+    void readAsync(Consumer<ByteBuffer> onChunk, Runnable onDone, Consumer<Throwable> onError); // chunks are only valid until onChunk returns
+
+    default CompletionStage<byte[]> readAsync() {
+        return readAsync(Long.MAX_VALUE);
+    }
+
+    default CompletionStage<byte[]> readAsync(long maxSize) {
+        CompletableFuture<byte[]> body = new CompletableFuture<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        readAsync(chunk -> {
+            if (bytes.size() + chunk.remaining() > maxSize) {
+                throw new IllegalStateException(String.format("The request body is larger than the %d bytes allowed", maxSize));
+            }
+            if (chunk.hasArray()) {
+                bytes.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            } else {
+                byte[] copy = new byte[chunk.remaining()];
+                chunk.get(copy);
+                bytes.write(copy, 0, copy.length);
+            }
+        }, () -> body.complete(bytes.toByteArray()), body::completeExceptionally);
+        return body;
+    }
+
     <R> R rawRequest(Class<R> type); //The escape chute to native Request object
 }
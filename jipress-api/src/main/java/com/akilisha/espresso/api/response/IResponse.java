@@ -44,6 +44,9 @@ public interface IResponse {
 
     void end(Object data, String encoding);
 
+    // sends the data in whichever of the types the body parsers can write the Accept header prefers, or a 406 if none
+    void format(Object data);
+
     String get(String headerName);
 
     void json(Object json);
@@ -9,4 +9,10 @@ public interface IStaticOptions {
     boolean acceptRanges();
 
     boolean listDirectories();
+
+    long cacheSize();
+
+    long maxCachedFileSize();
+
+    boolean precompress();
 }
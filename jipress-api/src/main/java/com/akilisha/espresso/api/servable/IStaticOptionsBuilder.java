@@ -10,6 +10,9 @@ public class IStaticOptionsBuilder {
     String[] welcomeFiles = {"index.html"};
     Boolean acceptRanges = true;
     Boolean listDirectories = false;
+    long cacheSize = 0;
+    long maxCachedFileSize = 1024 * 1024;
+    Boolean precompress = true;
 
     private IStaticOptionsBuilder() {
         //hide constructor
@@ -53,6 +56,21 @@ public class IStaticOptionsBuilder {
         return this;
     }
 
+    public IStaticOptionsBuilder cacheSize(long cacheSize) {
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    public IStaticOptionsBuilder maxCachedFileSize(long maxCachedFileSize) {
+        this.maxCachedFileSize = maxCachedFileSize;
+        return this;
+    }
+
+    public IStaticOptionsBuilder precompress(Boolean precompress) {
+        this.precompress = precompress;
+        return this;
+    }
+
     public IStaticOptions build() {
         return new IStaticOptions() {
             @Override
@@ -74,6 +92,21 @@ public class IStaticOptionsBuilder {
             public boolean listDirectories() {
                 return listDirectories;
             }
+
+            @Override
+            public long cacheSize() {
+                return cacheSize;
+            }
+
+            @Override
+            public long maxCachedFileSize() {
+                return maxCachedFileSize;
+            }
+
+            @Override
+            public boolean precompress() {
+                return precompress;
+            }
         };
     }
 
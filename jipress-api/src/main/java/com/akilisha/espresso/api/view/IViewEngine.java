@@ -3,6 +3,7 @@ package com.akilisha.espresso.api.view;
 import com.akilisha.espresso.api.application.AppSettings;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 public interface IViewEngine {
@@ -12,6 +13,10 @@ public interface IViewEngine {
 
     String name();
 
+    // engine specific tuning, e.g. cache sizes. Engines without any settings to tune can ignore it
+    default void init(Map<String, Object> params) {
+    }
+
     void templateDir(String dirName);
 
     String templateDir();
@@ -21,4 +26,14 @@ public interface IViewEngine {
     String mergeContent(String content, Map<String, Object> model) throws IOException;
 
     String render(AppSettings settings, String template, Map<String, Object> model) throws IOException;
+
+    // writes the page out as it is rendered, instead of building it up as a String first
+    default void render(AppSettings settings, String template, Map<String, Object> model, Writer writer) throws IOException {
+        writer.write(render(settings, template, model));
+    }
+
+    // compiles a template (relative to the template dir) ahead of the first request for it. This may be called from
+    // several threads at once
+    default void precompile(String fileName) throws IOException {
+    }
 }
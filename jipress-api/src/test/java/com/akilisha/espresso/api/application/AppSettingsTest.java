@@ -8,13 +8,13 @@ class AppSettingsTest {
 
     @Test
     void check_number_of_settings_available() {
-        assertThat(AppSettings.Setting.values()).hasSize(20);
+        assertThat(AppSettings.Setting.values()).hasSize(28);
     }
 
     @Test
     void check_that_new_instance_contains_default_values() {
         AppSettings settings = new AppSettings();
-        assertThat(settings).hasSize(12);
+        assertThat(settings).hasSize(20);
     }
 
     @Test
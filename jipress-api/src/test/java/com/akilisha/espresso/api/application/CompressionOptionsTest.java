@@ -0,0 +1,30 @@
+package com.akilisha.espresso.api.application;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionOptionsTest {
+
+    @Test
+    void default_options_compress_text_and_json_but_not_images() {
+        CompressionOptions options = CompressionOptionsBuilder.newBuilder().build();
+        assertThat(options.encodings()).containsExactly("gzip", "deflate");
+        assertThat(options.minSize()).isEqualTo(1024);
+        assertThat(options.compressible("text/html; charset=utf-8")).isTrue();
+        assertThat(options.compressible("application/json")).isTrue();
+        assertThat(options.compressible("image/png")).isFalse();
+        assertThat(options.compressible(null)).isFalse();
+    }
+
+    @Test
+    void excluded_types_take_precedence_over_included_ones() {
+        CompressionOptions options = CompressionOptionsBuilder.newBuilder()
+                .includedTypes("text/*")
+                .excludedTypes("text/event-stream")
+                .build();
+        assertThat(options.compressible("text/plain")).isTrue();
+        assertThat(options.compressible("Text/Event-Stream")).isFalse();
+        assertThat(options.compressible("application/json")).isFalse();
+    }
+}
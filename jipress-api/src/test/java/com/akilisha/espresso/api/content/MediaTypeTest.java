@@ -0,0 +1,36 @@
+package com.akilisha.espresso.api.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaTypeTest {
+
+    @Test
+    void parses_the_type_suffix_and_parameters() {
+        MediaType type = MediaType.parse("Application/vnd.api+JSON; charset=\"UTF-8\"");
+        assertThat(type.essence()).isEqualTo("application/vnd.api+json");
+        assertThat(type.suffix()).isEqualTo("json");
+        assertThat(type.charset()).isEqualTo("UTF-8");
+        assertThat(MediaType.parse("Application/vnd.api+JSON; charset=\"UTF-8\"")).isSameAs(type);
+    }
+
+    @Test
+    void orders_accept_ranges_by_quality_then_specificity() {
+        List<MediaType> ranges = MediaType.parseAccept("*/*;q=0.8, text/*, text/html, application/json;q=0.9");
+        assertThat(ranges).extracting(MediaType::essence)
+                .containsExactly("text/html", "text/*", "application/json", "*/*");
+    }
+
+    @Test
+    void negotiates_the_most_preferred_available_type() {
+        List<String> available = List.of("application/json", "text/plain");
+        assertThat(MediaType.negotiate("text/*;q=0.9, application/json;q=0.5", available)).isEqualTo("text/plain");
+        assertThat(MediaType.negotiate("*/*", available)).isEqualTo("application/json");
+        assertThat(MediaType.negotiate(null, available)).isEqualTo("application/json");
+        assertThat(MediaType.negotiate("text/*, text/plain;q=0", available)).isNull();
+        assertThat(MediaType.negotiate("image/png", available)).isNull();
+    }
+}
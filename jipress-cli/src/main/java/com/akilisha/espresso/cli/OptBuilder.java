@@ -16,6 +16,18 @@ public class OptBuilder {
         this.add("redirectSecure", true, "redirect from http to https", false);
         this.add("deployEnv", true, "deployment environment (dev, prod, test, int, stage)", false);
         this.add("watch", false, "watching plugins dir for changes", false);
+        this.add("poolRequests", true, "recycle request-scoped objects between requests", false);
+        this.add("virtualThreads", true, "handle requests on virtual threads", false);
+        this.add("routeMatcher", true, "path matching strategy for routes (regex, radix)", false);
+
+        // thread pool and load shedding
+        this.add("minThreads", true, "minimum number of threads in the server's pool", false);
+        this.add("maxThreads", true, "maximum number of threads in the server's pool", false);
+        this.add("threadIdleTimeout", true, "milliseconds an extra thread may stay idle before it is stopped", false);
+        this.add("maxQueuedJobs", true, "number of jobs that can wait for a free thread", false);
+        this.add("shedQueueDepth", true, "number of waiting jobs at which requests get a 503", false);
+        this.add("shedQueueWait", true, "milliseconds waited for a thread after which requests get a 503", false);
+        this.add("shedRetryAfter", true, "seconds in the Retry-After header of a 503", false);
 
         // keystore
         this.add("keystorePass", true, "keystore password", false);
@@ -0,0 +1,87 @@
+package com.akilisha.espresso.jett;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Run with './gradlew -Pbenchmarks :jipress-jetty:jmh -Pjmh.includes=VirtualThreadsBenchmark' - each invocation
+// sends a burst of concurrent requests to a handler that blocks the way a JDBC or remote HTTP call would. With a
+// bounded pool, the platform-thread mode can only have that many requests blocked at once, and the virtual-thread
+// mode can have all of them.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class VirtualThreadsBenchmark {
+
+    static final int CONCURRENT_REQUESTS = 500;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"50"})
+    int maxThreads;
+
+    @Param({"20"})
+    int blockingMillis;
+
+    Server server;
+    HttpClient client;
+    HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        AppSettings settings = new AppSettings();
+        settings.put(AppSettings.Setting.MAX_THREADS, maxThreads);
+        QueuedThreadPool threadPool = Espresso.createThreadPool(settings, virtualThreads);
+        server = new Server(threadPool);
+        ServerConnector connector = new ServerConnector(server, 1, 1);
+        connector.setAcceptQueueSize(CONCURRENT_REQUESTS);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest req, HttpServletResponse res) {
+                try {
+                    Thread.sleep(blockingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                res.setStatus(200);
+                baseRequest.setHandled(true);
+            }
+        });
+        server.start();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create(String.format("http://localhost:%d/", connector.getLocalPort()))).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public void blockingHandler() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONCURRENT_REQUESTS];
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+    }
+}
@@ -0,0 +1,88 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Run with './gradlew -Pbenchmarks :jipress-jetty:jmh' - the 'gc' profiler reports 'gc.alloc.rate.norm', which is the number of
+// bytes allocated per request. 'legacyBeforeChain' reproduces the per-request merge that ByPathRegex used to do,
+// while 'cachedBeforeChain' looks up the chain that is merged as the routes are stored.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RouteSelectBenchmark {
+
+    final IMiddleware handler = (req, res, next) -> {
+    };
+    final IMiddleware before = (req, res, next) -> {
+    };
+
+    @Param({"10", "100", "300"})
+    int routes;
+
+    ByPathRegex byPathRegex;
+    ByPathRadix byPathRadix;
+    CompiledRoutes compiledRoutes;
+    String path;
+    String matchedKey;
+
+    @Setup
+    public void setup() {
+        byPathRegex = new ByPathRegex();
+        byPathRadix = new ByPathRadix();
+        for (int i = 0; i < routes; i++) {
+            String route = String.format("/api/v1/resource%d/:id/items/:itemId", i);
+            byPathRegex.store(ReqMethod.GET, route, new IMiddleware[]{handler});
+            byPathRadix.store(ReqMethod.GET, route, handler);
+        }
+        byPathRegex.store("/[\\w/]+", before);
+        byPathRadix.store("/[\\w/]+", before);
+        compiledRoutes = CompiledRoutes.compile(byPathRegex);
+
+        // worst case for a linear scan - the last route registered
+        path = String.format("/api/v1/resource%d/42/items/7", routes - 1);
+        matchedKey = String.format("/api/v1/resource%d/:id/items/:itemId", routes - 1);
+    }
+
+    @Benchmark
+    public IMatched selectByPathRegex() {
+        return byPathRegex.select(ReqMethod.GET, path);
+    }
+
+    @Benchmark
+    public IMatched selectCompiledRoutes() {
+        return compiledRoutes.select(ReqMethod.GET, path);
+    }
+
+    @Benchmark
+    public IMatched selectByPathRadix() {
+        return byPathRadix.select(ReqMethod.GET, path);
+    }
+
+    @Benchmark
+    public IMiddleware[] legacyBeforeChain() {
+        IMiddleware[] handlers = byPathRegex.middlewares.get(matchedKey);
+        Optional<IMiddleware[]> befores = byPathRegex.all.entrySet().stream()
+                .filter(entry -> Pattern.matches(entry.getKey(), path))
+                .map(Map.Entry::getValue)
+                .findFirst();
+        if (befores.isPresent()) {
+            IMiddleware[] merged = new IMiddleware[handlers.length + befores.get().length];
+            System.arraycopy(befores.get(), 0, merged, 0, befores.get().length);
+            System.arraycopy(handlers, 0, merged, befores.get().length, handlers.length);
+            return merged;
+        }
+        return handlers;
+    }
+
+    @Benchmark
+    public IMiddleware[] cachedBeforeChain() {
+        return compiledRoutes.chains[routes - 1].select(path);
+    }
+}
@@ -14,23 +14,30 @@ import com.akilisha.espresso.jett.application.Application;
 import com.akilisha.espresso.jett.application.PathUtils;
 import com.akilisha.espresso.jett.config.ConfigMap;
 import com.akilisha.espresso.jett.content.BodyParsersCache;
+import com.akilisha.espresso.jett.handler.LoadSheddingHandler;
 import com.akilisha.espresso.jett.handler.RouteHandler;
 import com.akilisha.espresso.jett.lifecycle.*;
 import com.akilisha.espresso.jett.plugin.ExtensionsDirectory;
 import com.akilisha.espresso.jett.plugin.PluginsDirectory;
+import com.akilisha.espresso.jett.response.ETag;
 import com.akilisha.espresso.jett.servable.StaticOptionsBuilder;
 import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
 import org.eclipse.jetty.http.HttpCompliance;
 import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.server.*;
 import org.eclipse.jetty.server.handler.*;
+import org.eclipse.jetty.util.BlockingArrayQueue;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static com.akilisha.espresso.api.content.IContentType.*;
@@ -92,6 +99,7 @@ public class Espresso {
         // load configured plugins
         pluginLifecycle.onLoadPlugin(new ViewEnginesCallback());
         pluginLifecycle.onLoadPlugin(new BodyParserCallback());
+        pluginLifecycle.onLoadPlugin(new JsonCodecCallback());
         pluginLifecycle.onLoadPlugin(new RouterHandleCallback());
 
         // load extensions
@@ -109,6 +117,12 @@ public class Espresso {
         return parser;
     }
 
+    public static IBodyParser json(long maxBodySize) {
+        IBodyParser parser = Objects.requireNonNull(BodyParsersCache.parser(APPLICATION_JSON));
+        parser.init(Map.of(StartupEnv.JSON_MAX_BODY_SIZE.property, maxBodySize));
+        return parser;
+    }
+
     public static IBodyParser raw() {
         IBodyParser parser = Objects.requireNonNull(BodyParsersCache.parser(APPLICATION_OCTET_STREAM));
         parser.init(Collections.emptyMap());
@@ -127,6 +141,12 @@ public class Espresso {
         return parser;
     }
 
+    public static IBodyParser urlEncoded(long maxBodySize, int maxFields, int maxKeyLength) {
+        IBodyParser parser = Objects.requireNonNull(BodyParsersCache.parser(FORM_URL_ENCODED));
+        parser.init(Map.of(StartupEnv.FORM_MAX_BODY_SIZE.property, maxBodySize, StartupEnv.FORM_MAX_FIELDS.property, maxFields, StartupEnv.FORM_MAX_KEY_LENGTH.property, maxKeyLength));
+        return parser;
+    }
+
     public static IBodyParser multipart(String location) {
         String multipartLocation = location != null ? location : (String) StartupEnv.MULTIPART_LOCATION.value;
         long maxFileSize = (long) StartupEnv.MULTIPART_MAX_FILE_SIZE.value;
@@ -143,12 +163,20 @@ public class Espresso {
     }
 
     public static ResourceHandler staticFiles(IStaticOptions options) {
-        return StaticOptionsBuilder.newBuilder().options(options).build();
+        return staticFiles(options, () -> ETag.WEAK);
+    }
+
+    public static ResourceHandler staticFiles(IStaticOptions options, Supplier<String> etagMode) {
+        return StaticOptionsBuilder.newBuilder().options(options).etagMode(etagMode).build();
     }
 
     public static ContextHandler staticFiles(String context, IStaticOptions options) {
+        return staticFiles(context, options, () -> ETag.WEAK);
+    }
+
+    public static ContextHandler staticFiles(String context, IStaticOptions options, Supplier<String> etagMode) {
         ContextHandler contextHandler = new ContextHandler(context);
-        ResourceHandler handler = StaticOptionsBuilder.newBuilder().options(options).build();
+        ResourceHandler handler = staticFiles(options, etagMode);
         contextHandler.setHandler(handler);
         return contextHandler;
     }
@@ -171,10 +199,11 @@ public class Espresso {
         String certPath = props.getOrDefault(StartupEnv.KEYSTORE_PATH.property, props.cacertsPath());
         String certPass = props.getOrDefault(StartupEnv.KEYSTORE_PASS.property, props.defaultPass());
         String deployEnv = props.getOrDefault(StartupEnv.DEPLOY_ENVIRONMENT.property, (String) StartupEnv.DEPLOY_ENVIRONMENT.value);
+        Boolean virtualThreads = props.getOrDefault(StartupEnv.VIRTUAL_THREADS.property, Boolean::parseBoolean, (boolean) StartupEnv.VIRTUAL_THREADS.value);
 
-        //create thread-pool
-        QueuedThreadPool threadPool = new QueuedThreadPool();
-        threadPool.setName(StartupEnv.SERVER_NAME.value.toString());
+        //create thread-pool - the limits given on the command line take precedence over the app's settings
+        applyStartupLimits(((Application) entryApp).getSettings(), props::getOptionValue);
+        QueuedThreadPool threadPool = createThreadPool(((Application) entryApp).getSettings(), virtualThreads);
         Server server = new Server(threadPool);
         Runtime.getRuntime().addShutdownHook(new Thread(scheduler::shutdown));
 
@@ -186,6 +215,48 @@ public class Espresso {
         return server;
     }
 
+    static void applyStartupLimits(AppSettings settings, Function<String, String> options) {
+        Map<StartupEnv, AppSettings.Setting> limits = Map.of(
+                StartupEnv.MIN_THREADS, AppSettings.Setting.MIN_THREADS,
+                StartupEnv.MAX_THREADS, AppSettings.Setting.MAX_THREADS,
+                StartupEnv.THREAD_IDLE_TIMEOUT, AppSettings.Setting.THREAD_IDLE_TIMEOUT,
+                StartupEnv.MAX_QUEUED_JOBS, AppSettings.Setting.MAX_QUEUED_JOBS,
+                StartupEnv.SHED_QUEUE_DEPTH, AppSettings.Setting.SHED_QUEUE_DEPTH,
+                StartupEnv.SHED_QUEUE_WAIT, AppSettings.Setting.SHED_QUEUE_WAIT,
+                StartupEnv.SHED_RETRY_AFTER, AppSettings.Setting.SHED_RETRY_AFTER);
+        limits.forEach((option, setting) -> {
+            String value = options.apply(option.property);
+            if (value != null) {
+                settings.put(setting, Integer.parseInt(value.trim()));
+            }
+        });
+    }
+
+    static QueuedThreadPool createThreadPool(AppSettings settings, boolean virtualThreads) {
+        int minThreads = Integer.parseInt(settings.get(AppSettings.Setting.MIN_THREADS).toString());
+        int maxThreads = Integer.parseInt(settings.get(AppSettings.Setting.MAX_THREADS).toString());
+        int idleTimeout = Integer.parseInt(settings.get(AppSettings.Setting.THREAD_IDLE_TIMEOUT).toString());
+        int maxQueuedJobs = Integer.parseInt(settings.get(AppSettings.Setting.MAX_QUEUED_JOBS).toString());
+
+        // a bounded queue, so that an overloaded server rejects work instead of letting latency grow without limit
+        BlockingArrayQueue<Runnable> queue = new BlockingArrayQueue<>(Math.min(minThreads, maxQueuedJobs), minThreads, maxQueuedJobs);
+        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, minThreads, idleTimeout, queue);
+        threadPool.setName(StartupEnv.SERVER_NAME.value.toString());
+        if (virtualThreads) {
+            if (Integer.parseInt(settings.get(AppSettings.Setting.SHED_QUEUE_DEPTH).toString()) > 0) {
+                //each request gets a virtual thread of its own, so none ever waits in the pool's queue for the depth to count
+                throw new IllegalStateException(String.format("'%s' cannot be used with '%s', as requests never queue up for " +
+                        "a pool thread then. Use '%s' instead", StartupEnv.SHED_QUEUE_DEPTH.property,
+                        StartupEnv.VIRTUAL_THREADS.property, StartupEnv.SHED_QUEUE_WAIT.property));
+            }
+            // the pool threads keep doing the selecting and accepting, while each request is handed off to a new
+            // virtual thread, so handlers that block on I/O no longer hold on to a pool thread while they wait
+            ThreadFactory factory = Thread.ofVirtual().name(threadPool.getName() + "-virtual-", 0).factory();
+            threadPool.setVirtualThreadsExecutor(Executors.newThreadPerTaskExecutor(factory));
+        }
+        return threadPool;
+    }
+
     private static ServerConnector createHttpConnector(String host, int httpPort, int httpsPort, Server server, IApplication entryApp) {
         // The HTTP configuration object.
         HttpConfiguration httpConfig = createHttpConfiguration(httpsPort);
@@ -258,6 +329,13 @@ public class Espresso {
         try {
             Server server = create(host, port, args, entryApp);
 
+            // freeze route tables before any request can reach them
+            String routeMatcher = StartUp.instance(args).getOrDefault(StartupEnv.ROUTE_MATCHER.property, (String) StartupEnv.ROUTE_MATCHER.value);
+            compileRoutes(entryApp, routeMatcher);
+
+            // compile view templates now, instead of on the first request for each of them
+            warmUpViews(entryApp);
+
             // figure out mounted paths
             List<String> mountPaths = new LinkedList<>();
             extractPatterns("/", mountPaths, entryApp);
@@ -265,9 +343,13 @@ public class Espresso {
             Set<String> pathPrefixes = PathUtils.longestPathPrefix(pathPatterns.values());
 
             // register context handlers with the context collection
-            configureContextHandler(entryApp, pathPrefixes);
+            // pooled objects are kept per thread, which gains nothing when every request gets a new virtual thread
+            Boolean poolRequests = StartUp.instance(args).getOrDefault(StartupEnv.POOL_REQUESTS.property, Boolean::parseBoolean, (boolean) StartupEnv.POOL_REQUESTS.value)
+                    && !StartUp.instance(args).getOrDefault(StartupEnv.VIRTUAL_THREADS.property, Boolean::parseBoolean, (boolean) StartupEnv.VIRTUAL_THREADS.value);
+            long asyncTimeout = Long.parseLong(((Application) entryApp).getSettings().get(AppSettings.Setting.ASYNC_TIMEOUT).toString());
+            configureContextHandler(entryApp, pathPrefixes, poolRequests, asyncTimeout);
             for (IApplication application : ((Application) entryApp).getSubApplications().values()) {
-                configureContextHandler(application, pathPrefixes);
+                configureContextHandler(application, pathPrefixes, poolRequests, asyncTimeout);
             }
 
             // if using secure protocol, rewrite url to https
@@ -283,7 +365,7 @@ public class Espresso {
             handlerList.addHandler(new DefaultHandler());
 
             // add handlers list - invoking handlers up to the first that calls Request.setHandled(true)
-            server.setHandler(handlerList);
+            server.setHandler(loadShedding(((Application) entryApp).getSettings(), (QueuedThreadPool) server.getThreadPool(), handlerList));
 
             //make callback before starting
             callback.accept(String.format("The host %s will now start a server on port %d", host, port));
@@ -295,7 +377,19 @@ public class Espresso {
         }
     }
 
-    private static void configureContextHandler(IApplication application, Set<String> pathPrefixes) {
+    private static Handler loadShedding(AppSettings settings, QueuedThreadPool threadPool, Handler handler) {
+        int maxQueueDepth = Integer.parseInt(settings.get(AppSettings.Setting.SHED_QUEUE_DEPTH).toString());
+        int maxQueueWait = Integer.parseInt(settings.get(AppSettings.Setting.SHED_QUEUE_WAIT).toString());
+        if (maxQueueDepth <= 0 && maxQueueWait <= 0) {
+            return handler;
+        }
+        int retryAfter = Integer.parseInt(settings.get(AppSettings.Setting.SHED_RETRY_AFTER).toString());
+        LoadSheddingHandler shedding = new LoadSheddingHandler(threadPool, maxQueueDepth, maxQueueWait, retryAfter);
+        shedding.setHandler(handler);
+        return shedding;
+    }
+
+    private static void configureContextHandler(IApplication application, Set<String> pathPrefixes, boolean poolRequests, long asyncTimeout) {
         String ctxPath = application.mountPath() != null ?
                 Stream.of(new String[]{"*", "?", "+"}).anyMatch(ch -> application.mountPath().contains(ch)) ?
                         application.mountPath().replaceAll(PATH_SEGMENT, "") :
@@ -304,12 +398,26 @@ public class Espresso {
                 DEFAULT_CTX;
         if (pathPrefixes.contains(ctxPath)) {
             ContextHandler ctxHandler = new ContextHandler(ctxPath);
-            ctxHandler.setHandler(new RouteHandler((Application) application));
+            ctxHandler.setHandler(new RouteHandler((Application) application, poolRequests, asyncTimeout));
             Espresso.ctxHandlers.addHandler(ctxHandler);
             pathPrefixes.remove(ctxPath);
         }
     }
 
+    private static void compileRoutes(IApplication application, String routeMatcher) {
+        ((Application) application).compile(routeMatcher);
+        for (IApplication app : ((Application) application).getSubApplications().values()) {
+            compileRoutes(app, routeMatcher);
+        }
+    }
+
+    private static void warmUpViews(IApplication application) throws IOException {
+        ((Application) application).warmUpViews();
+        for (IApplication app : ((Application) application).getSubApplications().values()) {
+            warmUpViews(app);
+        }
+    }
+
     private static void extractPatterns(String prefix, List<String> hierarchy, IApplication application) {
         String newPrefix;
         if (application.mountPath() == null) {
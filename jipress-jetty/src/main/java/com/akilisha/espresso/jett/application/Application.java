@@ -1,6 +1,7 @@
 package com.akilisha.espresso.jett.application;
 
 import com.akilisha.espresso.api.application.AppSettings;
+import com.akilisha.espresso.api.application.CompressionOptions;
 import com.akilisha.espresso.api.application.CorsOptions;
 import com.akilisha.espresso.api.application.IApplication;
 import com.akilisha.espresso.api.content.IBodyParser;
@@ -16,8 +17,11 @@ import com.akilisha.espresso.jett.Espresso;
 import com.akilisha.espresso.jett.config.ConfigMap;
 import com.akilisha.espresso.jett.config.DefaultConfigLoader;
 import com.akilisha.espresso.jett.content.BodyParsersCache;
+import com.akilisha.espresso.jett.handler.CompressionHandler;
 import com.akilisha.espresso.jett.handler.CorsHandler;
+import com.akilisha.espresso.jett.response.ETag;
 import com.akilisha.espresso.jett.router.Router;
+import com.akilisha.espresso.jett.view.TemplatesWarmUp;
 import com.akilisha.espresso.jett.view.ViewEnginesCache;
 import com.akilisha.espresso.jett.websocket.WebSocketListenerCreator;
 import lombok.Getter;
@@ -28,10 +32,13 @@ import org.eclipse.jetty.server.handler.ResourceHandler;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.websocket.server.config.JettyWebSocketServletContainerInitializer;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.akilisha.espresso.jett.application.PathUtils.extractWebsocketPathParams;
 import static com.akilisha.espresso.jett.config.ConfigMap.MULTIPART_CONFIG;
@@ -122,6 +129,12 @@ public class Application extends Router implements IApplication, Cloneable {
         this.set(AppSettings.Setting.TEMPLATES_EXT.property, fileExt);
     }
 
+    @Override
+    public void engine(String engine, String templateDir, String fileExt, Map<String, Object> params) {
+        this.engine(engine, templateDir, fileExt);
+        ViewEnginesCache.init(engine, params); //so that the engines for other dirs get them too
+    }
+
     @Override
     public void engine(IViewEngine engine, String fileExt) {
         this.set(AppSettings.Setting.TEMPLATES_DIR.property, engine.templateDir());
@@ -167,11 +180,7 @@ public class Application extends Router implements IApplication, Cloneable {
 
     @Override
     public void render(String viewName, Map<String, Object> model, BiConsumer<Exception, String> callback) {
-        IViewEngine engine = ViewEnginesCache.engine(
-                Objects.requireNonNull(this.getSettings().get(AppSettings.Setting.VIEW_ENGINE),
-                        "View engine name must be specified in the app settings").toString(),
-                Objects.requireNonNull(this.getSettings().get(AppSettings.Setting.TEMPLATES_DIR),
-                        "Templates directory must be specified in the app settings").toString());
+        IViewEngine engine = viewEngine();
         try {
             String content = engine.render(getSettings(), viewName, model);
             callback.accept(null, content);
@@ -180,6 +189,30 @@ public class Application extends Router implements IApplication, Cloneable {
         }
     }
 
+    @Override
+    public void render(String viewName, Map<String, Object> model, Writer writer) throws IOException {
+        viewEngine().render(getSettings(), viewName, model, writer);
+    }
+
+    public void warmUpViews() throws IOException {
+        if (this.getSettings() == null) {
+            return; //sub-apps and routers have no view settings of their own
+        }
+        if (Stream.of(AppSettings.Setting.VIEW_ENGINE, AppSettings.Setting.TEMPLATES_DIR, AppSettings.Setting.TEMPLATES_EXT)
+                .allMatch(setting -> this.getSettings().get(setting) != null)) {
+            TemplatesWarmUp.warmUp(viewEngine(), this.getSettings().get(AppSettings.Setting.TEMPLATES_DIR).toString(),
+                    this.getSettings().get(AppSettings.Setting.TEMPLATES_EXT).toString());
+        }
+    }
+
+    private IViewEngine viewEngine() {
+        return ViewEnginesCache.engine(
+                Objects.requireNonNull(this.getSettings().get(AppSettings.Setting.VIEW_ENGINE),
+                        "View engine name must be specified in the app settings").toString(),
+                Objects.requireNonNull(this.getSettings().get(AppSettings.Setting.TEMPLATES_DIR),
+                        "Templates directory must be specified in the app settings").toString());
+    }
+
     @Override
     public IRouter route(String contextPath) {
         //When using this function to create an app, DO NOT use 'app.use()' to mount it. It is already mounted here in the sub-apps
@@ -214,6 +247,11 @@ public class Application extends Router implements IApplication, Cloneable {
         getHandlerList().addHandler(new CorsHandler(options));
     }
 
+    @Override
+    public void use(CompressionOptions options) {
+        getHandlerList().addHandler(new CompressionHandler(options));
+    }
+
     @Override
     public void use(IMiddleware... handlers) {
         this.all("/[\\w/]+", handlers);
@@ -231,13 +269,13 @@ public class Application extends Router implements IApplication, Cloneable {
 
     @Override
     public void use(IStaticOptions options) {
-        ResourceHandler resourceHandler = Espresso.staticFiles(options);
+        ResourceHandler resourceHandler = Espresso.staticFiles(options, () -> ETag.forSettings(getSettings()));
         getHandlerList().addHandler(resourceHandler);
     }
 
     @Override
     public void use(String path, IStaticOptions options) {
-        ContextHandler contextHandler = Espresso.staticFiles(path, options);
+        ContextHandler contextHandler = Espresso.staticFiles(path, options, () -> ETag.forSettings(getSettings()));
         assert getCtxHandlers() != null;
         getCtxHandlers().addHandler(contextHandler);
     }
@@ -13,6 +13,7 @@ public class PathUtils {
 
     public static final String TOKENIZE_PATH_PARAM_REGEX = "(:[\\w-]+?\\b)";
     public static final String EXTRACT_PATH_PARAM_REGEX = ":([\\w-]+?\\b)";
+    static final Pattern EXTRACT_PATH_PARAM_PATTERN = Pattern.compile(EXTRACT_PATH_PARAM_REGEX);
 
     private PathUtils() {
     }
@@ -52,6 +53,23 @@ public class PathUtils {
         }
     }
 
+    public static String joinPaths(String prefix, String path) {
+        // same as collapsing the slashes in "/prefix/path", without the regex
+        StringBuilder joined = new StringBuilder(prefix.length() + path.length() + 2);
+        for (String part : new String[]{prefix, path}) {
+            if (joined.isEmpty() || joined.charAt(joined.length() - 1) != '/') {
+                joined.append('/');
+            }
+            for (int i = 0; i < part.length(); i++) {
+                char ch = part.charAt(i);
+                if (ch != '/' || joined.charAt(joined.length() - 1) != '/') {
+                    joined.append(ch);
+                }
+            }
+        }
+        return joined.toString();
+    }
+
     public static Map<String, String> pathToRegexMap(List<String> paths) {
         return paths.stream().collect(Collectors.toMap(
                 path -> path,
@@ -74,23 +92,38 @@ public class PathUtils {
         }).collect(Collectors.toSet());
     }
 
-    public static Map<String, String> extractPathVariables(String path, String pathInfo) {
-        Matcher pathMatcher = Pattern.compile(EXTRACT_PATH_PARAM_REGEX).matcher(path);
+    public static String[] extractPathParamNames(String path, Pattern pathRegex) {
+        int groups = pathRegex.matcher("").groupCount();
+        String[] names = new String[groups];
+        Matcher pathMatcher = EXTRACT_PATH_PARAM_PATTERN.matcher(path);
+        for (int i = 0; i < groups; i++) {
+            names[i] = pathMatcher.find() ? pathMatcher.group(1) : Integer.toString(i);
+        }
+        return dropRepeatedNames(names);
+    }
 
-        String pathInfoRegex = PathUtils.pathToRegex(path);
-        Matcher pathInfoMatcher = Pattern.compile(pathInfoRegex).matcher(pathInfo);
+    // a name used more than once in a route keeps only its last capture, the same as putting them all in a map would,
+    // so the earlier ones are blanked out here instead of on every request
+    public static String[] dropRepeatedNames(String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            for (int j = i + 1; j < names.length && names[i] != null; j++) {
+                if (names[i].equals(names[j])) {
+                    names[i] = null;
+                }
+            }
+        }
+        return names;
+    }
 
+    public static Map<String, String> extractPathVariables(String path, String pathInfo) {
+        Pattern pathInfoRegex = Pattern.compile(PathUtils.pathToRegex(path));
+        Matcher pathInfoMatcher = pathInfoRegex.matcher(pathInfo);
         Map<String, String> matches = new LinkedHashMap<>();
         if (pathInfoMatcher.find()) {
-            int i = 0;
-            while (i++ < pathInfoMatcher.groupCount()) {
-                if (pathMatcher.find()) {
-                    String group = pathInfoMatcher.group(i);
-                    String key = pathMatcher.group(1);
-                    matches.put(key, group);
-                } else {
-                    String group = pathInfoMatcher.group(i);
-                    matches.put(Integer.toString(i - 1), group);
+            String[] names = extractPathParamNames(path, pathInfoRegex);
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] != null) {
+                    matches.put(names[i], pathInfoMatcher.group(i + 1));
                 }
             }
         }
@@ -98,18 +131,7 @@ public class PathUtils {
     }
 
     public static Map<String, List<String>> extractQueryVariables(String queryString) {
-        return queryString == null || queryString.trim().isEmpty() ? Collections.emptyMap() :
-                Arrays.stream(queryString.split("&")).reduce(new LinkedHashMap<>(), (acc, curr) -> {
-                    String[] entry = curr.split("=");
-                    if (acc.containsKey(entry[0])) {
-                        acc.get(entry[0]).add(entry[0]);
-                    } else {
-                        List<String> values = new LinkedList<>();
-                        values.add(entry[1]);
-                        acc.put(entry[0], values);
-                    }
-                    return acc;
-                }, (x, y) -> x);
+        return new QueryParams(queryString);
     }
 
     public static Map<String, String> extractWebsocketPathParams(JettyServerUpgradeRequest upgradeRequest) {
@@ -0,0 +1,156 @@
+package com.akilisha.espresso.jett.application;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class QueryParams extends AbstractMap<String, List<String>> {
+
+    final String queryString;
+    // 4 ints per pair - key start, key end, value start and value end. Value start is -1 for a key without '='
+    int[] offsets;
+    int pairs;
+    Map<String, List<String>> decoded;
+
+    public QueryParams(String queryString) {
+        this.queryString = queryString != null ? queryString : "";
+    }
+
+    public static String decode(String source, int start, int end) {
+        int i = start;
+        while (i < end && source.charAt(i) != '%' && source.charAt(i) != '+') {
+            i++;
+        }
+        if (i == end) {
+            return source.substring(start, end);
+        }
+
+        // percent-encoded bytes are collected and then decoded together, since a character may span several bytes
+        StringBuilder builder = new StringBuilder(end - start).append(source, start, i);
+        byte[] bytes = new byte[(end - i) / 3 + 1];
+        int count = 0;
+        while (i < end) {
+            char ch = source.charAt(i);
+            int high, low;
+            if (ch == '%' && i + 2 < end &&(high = Character.digit(source.charAt(i + 1), 16)) > -1
+                    && (low = Character.digit(source.charAt(i + 2), 16)) > -1) {
+                bytes[count++] = (byte) ((high << 4) + low);
+                i += 3;
+                continue;
+            }
+            if (count > 0) {
+                builder.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+                count = 0;
+            }
+            builder.append(ch == '+' ? ' ' : ch);
+            i += 1;
+        }
+        if (count > 0) {
+            builder.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+        }
+        return builder.toString();
+    }
+
+    private void scan() {
+        if (this.offsets != null) {
+            return;
+        }
+
+        int[] found = new int[16];
+        int count = 0;
+        int length = queryString.length();
+        int start = 0;
+        while (start < length) {
+            int equals = -1;
+            int end = start;
+            while (end < length && queryString.charAt(end) != '&') {
+                if (equals < 0 && queryString.charAt(end) == '=') {
+                    equals = end;
+                }
+                end++;
+            }
+            if (end > start && equals != start) {
+                if (found.length < (count + 1) * 4) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count * 4] = start;
+                found[count * 4 + 1] = equals < 0 ? end : equals;
+                found[count * 4 + 2] = equals < 0 ? -1 : equals + 1;
+                found[count * 4 + 3] = end;
+                count++;
+            }
+            start = end + 1;
+        }
+        this.pairs = count;
+        this.offsets = found;
+    }
+
+    private boolean keyEquals(int pair, String name) {
+        int start = offsets[pair * 4];
+        int end = offsets[pair * 4 + 1];
+        for (int i = start; i < end; i++) {
+            char ch = queryString.charAt(i);
+            if (ch == '%' || ch == '+') {
+                return decode(queryString, start, end).equals(name);
+            }
+        }
+        return end - start == name.length() && queryString.regionMatches(start, name, 0, name.length());
+    }
+
+    private String value(int pair) {
+        int start = offsets[pair * 4 + 2];
+        return start < 0 ? "" : decode(queryString, start, offsets[pair * 4 + 3]);
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        scan();
+        List<String> values = null;
+        for (int i = 0; i < pairs; i++) {
+            if (keyEquals(i, name)) {
+                if (values == null) {
+                    values = new ArrayList<>(2);
+                }
+                values.add(value(i));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String name)) {
+            return false;
+        }
+        scan();
+        for (int i = 0; i < pairs; i++) {
+            if (keyEquals(i, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        scan();
+        return pairs == 0;
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        // only materialized when the whole query is asked for
+        if (this.decoded == null) {
+            scan();
+            Map<String, List<String>> entries = new LinkedHashMap<>();
+            for (int i = 0; i < pairs; i++) {
+                entries.computeIfAbsent(decode(queryString, offsets[i * 4], offsets[i * 4 + 1]), key -> new ArrayList<>(2))
+                        .add(value(i));
+            }
+            this.decoded = entries;
+        }
+        return Collections.unmodifiableMap(this.decoded).entrySet();
+    }
+}
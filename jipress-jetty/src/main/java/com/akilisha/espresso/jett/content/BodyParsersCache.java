@@ -1,30 +1,72 @@
 package com.akilisha.espresso.jett.content;
 
 import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.content.MediaType;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class BodyParsersCache {
 
-    private static final Map<String, IBodyParser> parsers = new LinkedHashMap<>();
+    // read on every request, but only written when parsers are (re)loaded. Writers swap in an updated copy, so that
+    // readers never take a lock and always see a complete map
+    private static volatile Map<String, IBodyParser> parsers = Map.of();
 
     private BodyParsersCache() {
         //hide constructor
     }
 
+    // the parser for a request's content type, or null when there is none for it or the type is missing
     public static IBodyParser parser(String contentType) {
-        if (parsers.containsKey(contentType)) {
-            return parsers.get(contentType);
+        if (contentType == null || contentType.isBlank()) {
+            return null;
         }
-        throw new NullPointerException(String.format("There is no content parser configured for the type %s", contentType));
+        IBodyParser parser = parsers.get(contentType);
+        return parser != null ? parser : parser(MediaType.parse(contentType));
     }
 
-    public static void register(String contentType, IBodyParser parser) {
-        parsers.putIfAbsent(contentType, parser);
+    // 'application/json; charset=utf-8' goes by its type and subtype alone, 'application/vnd.api+json' falls back on
+    // 'application/json', and anything else on a 'type/*' parser, if there is one
+    public static IBodyParser parser(MediaType mediaType) {
+        Map<String, IBodyParser> registered = parsers;
+        IBodyParser parser = registered.get(mediaType.essence());
+        if (parser == null && mediaType.suffix() != null) {
+            parser = registered.get(mediaType.type() + "/" + mediaType.suffix());
+        }
+        if (parser == null) {
+            parser = registered.get(mediaType.type() + "/*");
+        }
+        return parser;
+    }
+
+    // the registered content types, in the order they were registered in
+    public static Collection<String> contentTypes() {
+        return parsers.keySet();
+    }
+
+    public static synchronized void register(String contentType, IBodyParser parser) {
+        if (!parsers.containsKey(contentType)) {
+            Map<String, IBodyParser> updated = new LinkedHashMap<>(parsers);
+            updated.put(contentType, parser);
+            parsers = Collections.unmodifiableMap(updated);
+        }
+    }
+
+    // swaps the parser for a content type while the server is running. Requests already holding the old one finish with it
+    public static synchronized void replace(String contentType, IBodyParser parser) {
+        Map<String, IBodyParser> updated = new LinkedHashMap<>(parsers);
+        updated.put(contentType, parser);
+        parsers = Collections.unmodifiableMap(updated);
+    }
+
+    // swaps in a whole new set of parsers at once, so there is no moment when none are registered
+    public static synchronized void reload(Map<String, IBodyParser> loaded) {
+        parsers = Collections.unmodifiableMap(new LinkedHashMap<>(loaded));
     }
 
-    public static void deregister() {
-        parsers.clear();
+    public static synchronized void deregister() {
+        parsers = Map.of();
     }
 }
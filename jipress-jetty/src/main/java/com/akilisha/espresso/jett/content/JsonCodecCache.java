@@ -0,0 +1,31 @@
+package com.akilisha.espresso.jett.content;
+
+import com.akilisha.espresso.api.content.IJsonCodec;
+
+public class JsonCodecCache {
+
+    private static volatile IJsonCodec codec;
+
+    private JsonCodecCache() {
+        //hide constructor
+    }
+
+    public static IJsonCodec codec() {
+        return codec;
+    }
+
+    public static void register(IJsonCodec jsonCodec) {
+        if (codec == null) {
+            codec = jsonCodec;
+        }
+    }
+
+    // swaps in the newly loaded codec at once, so there is no moment when none is registered
+    public static void reload(IJsonCodec jsonCodec) {
+        codec = jsonCodec;
+    }
+
+    public static void deregister() {
+        codec = null;
+    }
+}
@@ -0,0 +1,199 @@
+package com.akilisha.espresso.jett.handler;
+
+import com.akilisha.espresso.api.application.CompressionOptions;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+@ManagedObject("Compress response bodies as they are written")
+@RequiredArgsConstructor
+@Slf4j
+public class CompressionHandler extends HandlerWrapper {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+
+    final CompressionOptions options;
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        //only the output is set up here - the handlers further down the list still produce the response. It is set up
+        //even when nothing is to be compressed, so that a compressible response still tells caches that it could have been
+        String encoding = HttpMethod.HEAD.is(request.getMethod()) ? null : negotiate(request.getHeader(HttpHeader.ACCEPT_ENCODING.asString()));
+        HttpOutput out = baseRequest.getResponse().getHttpOutput();
+        out.setInterceptor(new Interceptor(out.getInterceptor(), baseRequest.getResponse(), encoding));
+        super.handle(target, baseRequest, request, response);
+    }
+
+    // the encoding the client gives the highest weight to, with '*' standing for any not named. Ties go to the one
+    // that comes first in the options, and a weight of 0 rules an encoding out
+    String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        String chosen = null;
+        double best = 0;
+        for (String encoding : options.encodings()) {
+            double weight = -1;
+            double any = 0;
+            for (String part : acceptEncoding.split(",")) {
+                String[] params = part.split(";");
+                String coding = params[0].trim();
+                if (coding.equalsIgnoreCase(encoding)) {
+                    weight = weight(params);
+                } else if (coding.equals("*")) {
+                    any = weight(params);
+                }
+            }
+            if (weight < 0) {
+                weight = any;
+            }
+            if (weight > best) {
+                best = weight;
+                chosen = encoding;
+            }
+        }
+        return chosen;
+    }
+
+    private static double weight(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    class Interceptor implements HttpOutput.Interceptor {
+
+        final HttpOutput.Interceptor next;
+        final Response response;
+        final String encoding;
+        Boolean compressing;
+        StreamingCompressor compressor;
+        ByteBuffer buffer;
+
+        Interceptor(HttpOutput.Interceptor next, Response response, String encoding) {
+            this.next = next;
+            this.response = response;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public HttpOutput.Interceptor getNextInterceptor() {
+            return next;
+        }
+
+        @Override
+        public void write(ByteBuffer content, boolean last, Callback callback) {
+            if (compressing == null) {
+                compressing = start(content, last);
+            }
+            if (!compressing) {
+                next.write(content, last, callback);
+                return;
+            }
+            //an empty write that is not the last is a flush, and what the deflater holds has to go out with it
+            boolean flush = !last && !content.hasRemaining();
+            compressor.input(content);
+            new Deflate(last, flush, callback).iterate();
+        }
+
+        // decided on the first write, once the handler has settled the status and headers
+        private boolean start(ByteBuffer content, boolean last) {
+            int status = response.getStatus();
+            if (status < 200 || status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_PARTIAL_CONTENT
+                    || status == HttpServletResponse.SC_NOT_MODIFIED || response.getHeader(HttpHeader.CONTENT_ENCODING.asString()) != null
+                    || !options.compressible(response.getContentType())) {
+                return false;
+            }
+            //whether it ends up compressed or not, the body depends on what the client accepts
+            if (!response.getHttpFields().contains(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString())) {
+                response.addHeader(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+            }
+            if (encoding == null) {
+                return false;
+            }
+            long length = response.getContentLength();
+            if (length < 0 && last) {
+                length = content.remaining(); //the whole body arrived in one go
+            }
+            if (length > -1 && length < options.minSize()) {
+                return false;
+            }
+
+            response.setHeader(HttpHeader.CONTENT_ENCODING.asString(), encoding);
+            response.setContentLength(-1); //no longer known up front, so the body goes out chunked
+            String etag = response.getHeader(HttpHeader.ETAG.asString());
+            if (etag != null && !etag.startsWith("W/")) {
+                response.setHeader(HttpHeader.ETAG.asString(), "W/" + etag); //the bytes differ from the uncompressed ones
+            }
+            compressor = new StreamingCompressor(encoding, options.level());
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            return true;
+        }
+
+        class Deflate extends IteratingCallback {
+
+            final boolean last;
+            final boolean flush;
+            final Callback callback;
+            boolean done;
+
+            Deflate(boolean last, boolean flush, Callback callback) {
+                this.last = last;
+                this.flush = flush;
+                this.callback = callback;
+            }
+
+            @Override
+            protected Action process() {
+                if (done) {
+                    return Action.SUCCEEDED;
+                }
+                //one buffer of compressed output is passed on at a time, so the body is never held in full
+                buffer.clear();
+                compressor.deflate(buffer, last, flush);
+                buffer.flip();
+                if (last && compressor.finished()) {
+                    done = true;
+                    compressor.end();
+                } else if (!buffer.hasRemaining()) {
+                    return Action.SUCCEEDED; //all of this write's input went in, and the deflater holds on to or flushed it
+                }
+                next.write(buffer, done, this);
+                return Action.SCHEDULED;
+            }
+
+            @Override
+            protected void onCompleteSuccess() {
+                callback.succeeded();
+            }
+
+            @Override
+            protected void onCompleteFailure(Throwable cause) {
+                compressor.end();
+                callback.failed(cause);
+            }
+        }
+    }
+}
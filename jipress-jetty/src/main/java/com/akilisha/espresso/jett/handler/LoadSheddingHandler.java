@@ -0,0 +1,63 @@
+package com.akilisha.espresso.jett.handler;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ManagedObject("Turn requests away with a 503 while the server is overloaded")
+@RequiredArgsConstructor
+@Slf4j
+public class LoadSheddingHandler extends HandlerWrapper {
+
+    static final long WARN_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    final QueuedThreadPool threadPool;
+    final int maxQueueDepth;
+    final long maxQueueWait;
+    final int retryAfter;
+    //shedding comes in bursts, so it is summed up in a warning every so often rather than logged request by request
+    final AtomicLong shed = new AtomicLong();
+    final AtomicLong lastWarned = new AtomicLong(System.nanoTime() - WARN_INTERVAL);
+
+    private boolean overloaded(Request baseRequest) {
+        // how many jobs are still waiting for a thread, and how long this request itself waited since it was received
+        if (maxQueueDepth > 0 && threadPool.getQueueSize() >= maxQueueDepth) {
+            return true;
+        }
+        return maxQueueWait > 0 && System.currentTimeMillis() - baseRequest.getTimeStamp() >= maxQueueWait;
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        if (overloaded(baseRequest)) {
+            log.debug("Shedding {} {} - {} jobs are queued", request.getMethod(), target, threadPool.getQueueSize());
+            warn();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeader.RETRY_AFTER.asString(), Integer.toString(retryAfter));
+            baseRequest.setHandled(true);
+            return;
+        }
+        super.handle(target, baseRequest, request, response);
+    }
+
+    private void warn() {
+        shed.incrementAndGet();
+        long now = System.nanoTime();
+        long last = lastWarned.get();
+        if (now - last >= WARN_INTERVAL && lastWarned.compareAndSet(last, now)) {
+            log.warn("Shed {} requests in the last {} s - {} jobs are queued", shed.getAndSet(0),
+                    TimeUnit.NANOSECONDS.toSeconds(now - last), threadPool.getQueueSize());
+        }
+    }
+}
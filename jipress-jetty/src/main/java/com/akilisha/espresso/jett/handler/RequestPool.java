@@ -0,0 +1,141 @@
+package com.akilisha.espresso.jett.handler;
+
+import com.akilisha.espresso.api.middleware.INext;
+import com.akilisha.espresso.api.request.IRequest;
+import com.akilisha.espresso.api.response.IResponse;
+import com.akilisha.espresso.jett.request.Req;
+import com.akilisha.espresso.jett.response.Res;
+import com.akilisha.espresso.jett.routable.HandleNext;
+import lombok.experimental.Delegate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RequestPool {
+
+    //what a scope's 'pending' holds while a resumed chain is running, and once the request has ended or failed
+    static final CompletableFuture<?> RESUMED = new CompletableFuture<>();
+    static final CompletableFuture<?> ENDED = new CompletableFuture<>();
+
+    final boolean enabled;
+    final ThreadLocal<Scope> scopes = ThreadLocal.withInitial(Scope::new);
+
+    public RequestPool(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Scope acquire() {
+        if (!enabled) {
+            return new Scope();
+        }
+        Scope scope = scopes.get();
+        if (scope.inUse) {
+            return new Scope(); //a nested dispatch on the same thread gets its own, which is simply not pooled
+        }
+        scope.inUse = true;
+        scope.lease();
+        return scope;
+    }
+
+    public void release(Scope scope, boolean asyncStarted) {
+        if (!enabled || !scope.inUse) {
+            return;
+        }
+        if (asyncStarted) {
+            //the request is still in flight on some other thread, so leave these objects to it and start afresh
+            scope.inUse = false;
+            scopes.set(new Scope());
+            return;
+        }
+        scope.generation++; //whatever was handed out for this request stops working before the objects are reused
+        scope.req.recycle();
+        scope.res.recycle();
+        scope.next.recycle();
+        scope.watched = false;
+        scope.pending.set(null);
+        scope.inUse = false;
+    }
+
+    public static class Scope {
+
+        final Req req = new Req();
+        final Res res = new Res();
+        final HandleNext next = new HandleNext();
+        boolean inUse;
+        volatile int generation;
+        //the async stage the chain is suspended on, if any, and whether the request is being watched for a timeout
+        final AtomicReference<CompletableFuture<?>> pending = new AtomicReference<>();
+        volatile boolean suspended;
+        boolean watched;
+
+        //what the handlers get to see. Pooled objects are only ever seen through views bound to the current generation
+        IRequest request = req;
+        IResponse response = res;
+        INext handle = next;
+
+        //three small views (72 bytes) per request are what it takes for a stale reference to fail rather than reach
+        //the next request. Views reused across generations could not tell the two apart, and against the ~11 KB that
+        //Jetty allocates for even the smallest request, they were not worth giving that up for
+        void lease() {
+            int current = this.generation;
+            this.request = new PooledReq(this, current);
+            this.response = new PooledRes(this, current);
+            this.handle = new PooledNext(this, current);
+        }
+
+        Scope check(int generation) {
+            if (this.generation != generation) {
+                throw new IllegalStateException("This request has already ended and cannot be used any more");
+            }
+            return this;
+        }
+    }
+
+    static class PooledReq implements IRequest {
+
+        final Scope scope;
+        final int generation;
+
+        PooledReq(Scope scope, int generation) {
+            this.scope = scope;
+            this.generation = generation;
+        }
+
+        @Delegate(types = IRequest.class)
+        private IRequest target() {
+            return scope.check(generation).req;
+        }
+    }
+
+    static class PooledRes implements IResponse {
+
+        final Scope scope;
+        final int generation;
+
+        PooledRes(Scope scope, int generation) {
+            this.scope = scope;
+            this.generation = generation;
+        }
+
+        @Delegate(types = IResponse.class)
+        private IResponse target() {
+            return scope.check(generation).res;
+        }
+    }
+
+    static class PooledNext implements INext {
+
+        final Scope scope;
+        final int generation;
+
+        PooledNext(Scope scope, int generation) {
+            this.scope = scope;
+            this.generation = generation;
+        }
+
+        @Delegate(types = INext.class)
+        private INext target() {
+            return scope.check(generation).next;
+        }
+    }
+}
@@ -1,78 +1,258 @@
 package com.akilisha.espresso.jett.handler;
 
 import com.akilisha.espresso.api.application.IApplication;
+import com.akilisha.espresso.api.content.UnsupportedMediaTypeException;
+import com.akilisha.espresso.api.middleware.IAsyncMiddleware;
+import com.akilisha.espresso.api.middleware.IAsyncParamCallback;
 import com.akilisha.espresso.api.middleware.IErrorHandler;
 import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.middleware.IParamCallback;
 import com.akilisha.espresso.api.request.ReqMethod;
 import com.akilisha.espresso.api.routeable.IMatched;
 import com.akilisha.espresso.api.routeable.IRoutable;
 import com.akilisha.espresso.jett.application.Application;
 import com.akilisha.espresso.jett.application.PathUtils;
-import com.akilisha.espresso.jett.request.Req;
+import com.akilisha.espresso.jett.application.QueryParams;
 import com.akilisha.espresso.jett.response.Res;
 import com.akilisha.espresso.jett.routable.HandleNext;
-import com.akilisha.espresso.jett.routable.MatchedInfo;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
-@RequiredArgsConstructor
+@Slf4j
 public class RouteHandler extends AbstractHandler {
 
+    static final long DEFAULT_ASYNC_TIMEOUT = 30_000;
+
     final IRoutable routable;
+    final SubAppIndex subApps;
+    final RequestPool pool;
+    final long asyncTimeout;
+
+    public RouteHandler(IRoutable routable) {
+        this(routable, false, DEFAULT_ASYNC_TIMEOUT);
+    }
+
+    public RouteHandler(IRoutable routable, boolean poolRequests, long asyncTimeout) {
+        this.routable = routable;
+        this.subApps = routable != null ? SubAppIndex.build((Application) routable) : null;
+        this.pool = new RequestPool(poolRequests);
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    private void invokeHandler(IApplication app, String target, Request baseRequest, IMatched matchedInfo) {
+        RequestPool.Scope scope = this.pool.acquire();
+        try {
+            invokeHandler(app, target, baseRequest, matchedInfo, scope);
+        } finally {
+            //a suspended chain may already have been resumed and completed on another thread by now
+            this.pool.release(scope, scope.suspended || baseRequest.isAsyncStarted());
+        }
+    }
 
-    private static void invokeHandler(IApplication app, String target, Request baseRequest, IMatched matchedInfo) {
+    private void invokeHandler(IApplication app, String target, Request baseRequest, IMatched matchedInfo, RequestPool.Scope scope) {
+        scope.req.init(app, baseRequest, matchedInfo.getParams(), new QueryParams(baseRequest.getQueryString()));
+        scope.res.init(app, baseRequest, baseRequest.getResponse());
         if (matchedInfo.getHandlers() != null) {
-            HandleNext next = new HandleNext();
-            Req req = new Req(app, baseRequest, matchedInfo.getParams(), PathUtils.extractQueryVariables(baseRequest.getQueryString()));
-            Res res = new Res(app, baseRequest, baseRequest.getResponse());
-
-            //invoke param callbacks
-            for (Map.Entry<String, String> entry : matchedInfo.getParams().entrySet()) {
-                if (((Application) app).getPathParamCallbacks().containsKey(entry.getKey())) {
-                    ((Application) app).getPathParamCallbacks().get(entry.getKey()).handle(req, res, next, entry.getValue());
-                }
+            //param callbacks run ahead of the handlers in the same chain, so they may be async or fail the same way
+            IMiddleware[] handlers = matchedInfo.getHandlers();
+            Map<String, IParamCallback> callbacks = ((Application) app).getPathParamCallbacks();
+            if (!callbacks.isEmpty()) {
+                handlers = withParamCallbacks(callbacks, matchedInfo.getParams(), handlers);
             }
 
-            //invoke request handlers
-            for (IMiddleware handler : matchedInfo.getHandlers()) {
+            //invoke request handlers. One that leaves the request open (reading the body or sending a file off the thread)
+            //is held to the same timeout as a suspended chain, so that a response nobody ends still gets ended
+            if (!invokeHandlers((Application) app, handlers, 0, baseRequest, scope) && baseRequest.isAsyncStarted()) {
+                watch((Application) app, baseRequest.getAsyncContext(), scope);
+            }
+        } else {
+            Exception error = new RuntimeException(String.format("No handlers for '%s' request were found", target));
+            scope.next.error(null, error);
 
-                //invoke handler function
+            handleRequestException((Application) app, error, scope);
+        }
+    }
+
+    // path params are only read here when there are callbacks to invoke
+    private static IMiddleware[] withParamCallbacks(Map<String, IParamCallback> callbacks, Map<String, String> params, IMiddleware[] handlers) {
+        List<IMiddleware> chain = new ArrayList<>();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            IParamCallback callback = callbacks.get(entry.getKey());
+            String value = entry.getValue();
+            if (callback instanceof IAsyncParamCallback asyncCallback) {
+                chain.add((IAsyncMiddleware) (req, res, next) -> asyncCallback.handleAsync(req, res, next, value));
+            } else if (callback != null) {
+                chain.add((req, res, next) -> callback.handle(req, res, next, value));
+            }
+        }
+        if (chain.isEmpty()) {
+            return handlers;
+        }
+        chain.addAll(Arrays.asList(handlers));
+        return chain.toArray(IMiddleware[]::new);
+    }
+
+    // returns true when the chain was suspended on a pending async handler, and will carry on from another thread
+    private boolean invokeHandlers(Application app, IMiddleware[] handlers, int from, Request baseRequest, RequestPool.Scope scope) {
+        HandleNext next = scope.next;
+        for (int i = from; i < handlers.length; i++) {
+            IMiddleware handler = handlers[i];
+
+            //invoke handler function
+            if (handler instanceof IAsyncMiddleware asyncHandler) {
+                CompletableFuture<?> pending;
                 try {
-                    handler.handle(req, res, next);
+                    pending = asyncHandler.handleAsync(scope.request, scope.response, scope.handle).toCompletableFuture();
                 } catch (Exception e) {
-                    next.error(null, e);
+                    pending = CompletableFuture.failedFuture(e);
                 }
 
-                //handle error if any
-                if (next.hasError()) {
-                    handleRequestException((Application) app, next.getError(), req, res, next);
-                    break;
+                if (!pending.isDone()) {
+                    //let go of this thread, and carry on with the rest of the chain on a server thread once it completes
+                    AsyncContext async = baseRequest.isAsyncStarted() ? baseRequest.getAsyncContext() : baseRequest.startAsync();
+                    scope.suspended = true;
+                    watch(app, async, scope);
+                    scope.pending.set(pending);
+                    int resumeAt = i + 1;
+                    CompletableFuture<?> suspendedOn = pending;
+                    pending.whenComplete((result, failure) -> {
+                        //once the request has timed out, failed or completed, there is nothing left to resume
+                        if (scope.pending.compareAndSet(suspendedOn, RequestPool.RESUMED)) {
+                            try {
+                                async.start(() -> resume(app, handlers, resumeAt, baseRequest, scope, failure));
+                            } catch (IllegalStateException e) {
+                                log.debug("The request completed before its chain could be resumed", e);
+                            }
+                        }
+                    });
+                    return true;
+                }
+
+                try {
+                    pending.join();
+                } catch (CompletionException | CancellationException e) {
+                    next.error(null, unwrap(e));
+                }
+            } else {
+                try {
+                    handler.handle(scope.request, scope.response, scope.handle);
+                } catch (Exception e) {
+                    next.error(null, e);
                 }
             }
-        } else {
-            Exception error = new RuntimeException(String.format("No handlers for '%s' request were found", target));
-            HandleNext next = new HandleNext();
-            next.error(null, error);
-            Req req = new Req(app, baseRequest, matchedInfo.getParams(), PathUtils.extractQueryVariables(baseRequest.getQueryString()));
-            Res res = new Res(app, baseRequest, baseRequest.getResponse());
 
-            handleRequestException((Application) app, error, req, res, next);
+            //handle error if any
+            if (next.hasError()) {
+                handleRequestException(app, next.getError(), scope);
+                break;
+            }
+        }
+        return false;
+    }
+
+    private void resume(Application app, IMiddleware[] handlers, int from, Request baseRequest, RequestPool.Scope scope, Throwable failure) {
+        boolean suspended = false;
+        try {
+            if (failure != null) {
+                scope.next.error(null, unwrap(failure));
+            }
+            if (scope.next.hasError()) {
+                handleRequestException(app, scope.next.getError(), scope);
+            } else {
+                suspended = invokeHandlers(app, handlers, from, baseRequest, scope);
+            }
+        } finally {
+            if (!suspended) {
+                scope.pending.compareAndSet(RequestPool.RESUMED, null);
+                scope.res.end(); //in case none of the handlers that ran after resuming ended the response
+            }
         }
     }
 
-    private static void handleRequestException(Application app, Exception error, Req req, Res res, HandleNext next) {
+    // fails a request that stays suspended for too long, or whose connection breaks while it is suspended
+    private void watch(Application app, AsyncContext async, RequestPool.Scope scope) {
+        if (scope.watched) {
+            return;
+        }
+        scope.watched = true;
+        long timeout = this.asyncTimeout;
+        if (async.getTimeout() > 0) {
+            async.setTimeout(timeout); //a file being sent off the thread has asked for no timeout, and keeps it
+        }
+        async.addListener(new AsyncListener() {
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                String message = scope.pending.get() != null
+                        ? "The request was still waiting on an async middleware after %d ms"
+                        : "The request was still not ended after %d ms";
+                fail(app, scope, new TimeoutException(String.format(message, timeout)));
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                Throwable error = event.getThrowable();
+                fail(app, scope, error instanceof Exception e ? e : new RuntimeException(error));
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                scope.pending.set(RequestPool.ENDED);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+                event.getAsyncContext().addListener(this);
+            }
+        });
+    }
+
+    private static void fail(Application app, RequestPool.Scope scope, Exception error) {
+        //a chain that is suspended, or that has run to its end without the response being ended, is failed here. The
+        //stage it waits on is then ignored once it completes, and a resumed chain that is still running ends it itself
+        CompletableFuture<?> waitingOn = scope.pending.get();
+        if (waitingOn == RequestPool.RESUMED || waitingOn == RequestPool.ENDED || !scope.pending.compareAndSet(waitingOn, RequestPool.ENDED)) {
+            return;
+        }
+        try {
+            scope.next.error(null, error);
+            handleRequestException(app, error, scope);
+        } finally {
+            scope.res.end();
+        }
+    }
+
+    private static Exception unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof Exception e ? e : new RuntimeException(cause);
+    }
+
+    private static void handleRequestException(Application app, Exception error, RequestPool.Scope scope) {
+        if (error instanceof UnsupportedMediaTypeException) {
+            scope.res.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE_415); //a body there is no parser for. The error handlers may still pick another status
+        }
         for (IErrorHandler err : app.getErrorHandlers()) {
             if (err.isHandled()) {
                 break;
             }
-            err.handle(error, req, res, next);
+            err.handle(error, scope.request, scope.response, scope.handle);
         }
     }
 
@@ -93,8 +273,8 @@ public class RouteHandler extends AbstractHandler {
                 invokeHandler((IApplication) this.routable, target, baseRequest, matchedInfo);
             } else {
                 //Is there a sub-app that can be used instead?
-                String fullTarget = String.format("/%s/%s", baseRequest.getContextPath(), target).replaceAll("/+", "/");
-                IMatched matchedSub = lookupSubApp((Application) this.routable, method, fullTarget);
+                String fullTarget = PathUtils.joinPaths(baseRequest.getContextPath(), target);
+                IMatched matchedSub = this.subApps.select(method, fullTarget);
 
                 if (matchedSub.getHandlers() != null) {
                     invokeHandler((IApplication) routable, target, baseRequest, matchedSub);
@@ -107,36 +287,4 @@ public class RouteHandler extends AbstractHandler {
             baseRequest.setHandled(true);
         }
     }
-
-    private IMatched lookupSubApp(Application root, ReqMethod method, String target) {
-        // look up sub-app having "/" before looking other sub-apps
-        for (Map.Entry<String, IApplication> entry : root.getSubApplications().entrySet()) {
-            Application application = (Application) entry.getValue();
-            if (entry.getKey().equals("/")) {
-                IMatched matched = application.select(method, target);
-                if (matched.getHandlers() != null) {
-                    return matched;
-                } else {
-                    //depth-first search on this child
-                    IMatched matchedSub = lookupSubApp(application, method, target);
-                    if (matchedSub.getHandlers() != null) {
-                        return matchedSub;
-                    }
-                }
-            } else {
-                String fullPath = String.format("/%s/%s", root.getBasePath(), entry.getKey())
-                        .replaceAll("null", "")
-                        .replaceAll("/+", "/");
-                String regex = PathUtils.pathToRegex(fullPath);
-                if (Pattern.matches(regex, target)) {
-                    //depth-first-search on the matched siblings
-                    IMatched matched = lookupSubApp(application, method, target);
-                    if (matched.getHandlers() != null) {
-                        return matched;
-                    }
-                }
-            }
-        }
-        return new MatchedInfo();
-    }
 }
@@ -0,0 +1,84 @@
+package com.akilisha.espresso.jett.handler;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+public class StreamingCompressor {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    final Deflater deflater;
+    final CRC32 crc; //only for gzip, whose trailer carries the checksum of the uncompressed bytes
+    boolean headerWritten;
+    int trailerWritten;
+
+    public StreamingCompressor(String encoding, int level) {
+        boolean gzip = GZIP.equals(encoding);
+        this.deflater = new Deflater(level, gzip); //gzip wraps raw deflate data in its own header and trailer
+        this.crc = gzip ? new CRC32() : null;
+        this.headerWritten = !gzip;
+    }
+
+    // hands over the next chunk, which is read in place. It must be fully consumed before the next one is handed over
+    public void input(ByteBuffer content) {
+        if (crc != null) {
+            crc.update(content.duplicate());
+        }
+        deflater.setInput(content);
+    }
+
+    public boolean needsInput() {
+        return deflater.needsInput();
+    }
+
+    // compresses as much of the pending input as fits into the output. Until 'last' is set, data the deflater is still
+    // holding on to stays there, so an empty output means that it wants more input
+    public void deflate(ByteBuffer output, boolean last) {
+        this.deflate(output, last, false);
+    }
+
+    // the same, but with 'flush' set everything taken in so far is written out, so that the client can decode it. Calling
+    // it again while the output keeps filling up carries on with the flush, and once it is through it writes nothing
+    public void deflate(ByteBuffer output, boolean last, boolean flush) {
+        if (!headerWritten) {
+            if (output.remaining() < GZIP_HEADER.length) {
+                return;
+            }
+            output.put(GZIP_HEADER);
+            headerWritten = true;
+        }
+        while (output.hasRemaining() && !deflater.finished()) {
+            if (deflater.needsInput()) {
+                if (flush && !last) {
+                    deflater.deflate(output, Deflater.SYNC_FLUSH);
+                    return;
+                }
+                if (!last) {
+                    return;
+                }
+                deflater.finish();
+            }
+            deflater.deflate(output, Deflater.NO_FLUSH);
+        }
+        if (crc != null && deflater.finished()) {
+            long size = deflater.getBytesRead();
+            while (trailerWritten < 8 && output.hasRemaining()) {
+                long value = trailerWritten < 4 ? crc.getValue() : size;
+                output.put((byte) (value >> (8 * (trailerWritten % 4))));
+                trailerWritten++;
+            }
+        }
+    }
+
+    public boolean finished() {
+        return deflater.finished() && (crc == null || trailerWritten == 8);
+    }
+
+    public void end() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,135 @@
+package com.akilisha.espresso.jett.handler;
+
+import com.akilisha.espresso.api.application.IApplication;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import com.akilisha.espresso.jett.application.Application;
+import com.akilisha.espresso.jett.application.PathUtils;
+import com.akilisha.espresso.jett.routable.MatchedInfo;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+public class SubAppIndex {
+
+    final Application[] apps;
+    final Pattern[][] patterns;
+    final Map<String, int[]> byTarget;
+    final int[] fallback;
+
+    private SubAppIndex(Application[] apps, Pattern[][] patterns, Map<String, int[]> byTarget, int[] fallback) {
+        this.apps = apps;
+        this.patterns = patterns;
+        this.byTarget = byTarget;
+        this.fallback = fallback;
+    }
+
+    public static SubAppIndex build(Application root) {
+        // flatten the mounted hierarchy in the same depth-first order that it would be searched in. Each entry is a
+        // sub-app whose routes are selected, guarded by the mount paths of the sub-apps it is nested under
+        List<Entry> entries = new ArrayList<>();
+        flatten(root, new ArrayList<>(), entries);
+
+        List<Application> apps = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        List<Pattern[]> patterns = new ArrayList<>();
+        for (Entry entry : entries) {
+            Set<String> literalGuards = new HashSet<>();
+            List<Pattern> patternGuards = new ArrayList<>();
+            for (String guard : entry.guards) {
+                String regex = PathUtils.pathToRegex(guard);
+                if (isLiteral(regex)) {
+                    literalGuards.add(regex);
+                } else {
+                    patternGuards.add(Pattern.compile(regex));
+                }
+            }
+            if (literalGuards.size() > 1) {
+                continue; // no single target can equal two different mount paths
+            }
+            apps.add(entry.app);
+            literals.add(literalGuards.isEmpty() ? null : literalGuards.iterator().next());
+            patterns.add(patternGuards.toArray(Pattern[]::new));
+        }
+
+        // for each literal mount path, the candidate entries are those without literal guards plus the ones guarded
+        // by that path, so a request resolves its candidates with one map lookup
+        Map<String, int[]> byTarget = new HashMap<>();
+        for (String target : literals) {
+            if (target != null && !byTarget.containsKey(target)) {
+                byTarget.put(target, candidates(literals, target));
+            }
+        }
+
+        return new SubAppIndex(
+                apps.toArray(Application[]::new),
+                patterns.toArray(Pattern[][]::new),
+                byTarget,
+                candidates(literals, null));
+    }
+
+    private static int[] candidates(List<String> literals, String target) {
+        return IntStream.range(0, literals.size())
+                .filter(i -> literals.get(i) == null || literals.get(i).equals(target))
+                .toArray();
+    }
+
+    private static void flatten(Application root, List<String> guards, List<Entry> entries) {
+        for (Map.Entry<String, IApplication> entry : root.getSubApplications().entrySet()) {
+            Application application = (Application) entry.getValue();
+            if (entry.getKey().equals("/")) {
+                entries.add(new Entry(application, guards));
+                flatten(application, guards, entries);
+            } else {
+                String basePath = root.getBasePath() != null ? root.getBasePath() : "";
+                String fullPath = String.format("/%s/%s", basePath, entry.getKey()).replaceAll("/+", "/");
+                List<String> nested = new ArrayList<>(guards);
+                nested.add(fullPath);
+                flatten(application, nested, entries);
+            }
+        }
+    }
+
+    private static boolean isLiteral(String regex) {
+        for (int i = 0; i < regex.length(); i++) {
+            if ("\\^$.|?*+()[]{}".indexOf(regex.charAt(i)) > -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public IMatched select(ReqMethod method, String target) {
+        int[] candidates = this.byTarget.getOrDefault(target, this.fallback);
+        for (int candidate : candidates) {
+            if (matches(this.patterns[candidate], target)) {
+                IMatched matched = this.apps[candidate].select(method, target);
+                if (matched.getHandlers() != null) {
+                    return matched;
+                }
+            }
+        }
+        return new MatchedInfo();
+    }
+
+    private static boolean matches(Pattern[] guards, String target) {
+        for (Pattern guard : guards) {
+            if (!guard.matcher(target).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class Entry {
+
+        final Application app;
+        final List<String> guards;
+
+        Entry(Application app, List<String> guards) {
+            this.app = app;
+            this.guards = guards;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.akilisha.espresso.jett.content.BodyParserPlugins;
 import com.akilisha.espresso.jett.content.BodyParsersCache;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.ServiceLoader;
 
 @Slf4j
@@ -16,8 +18,10 @@ public class BodyParserCallback implements IPluginCallback {
     @Override
     public void reloadPlugins(IApplication app) {
         log.info("Start reloading plugins");
-        BodyParsersCache.deregister();
-        this.loadPlugins(app);
+        IBodyParserPlugin plugins = new BodyParserPlugins(ServiceLoader.load(IBodyParser.class));
+        Map<String, IBodyParser> loaded = new LinkedHashMap<>();
+        plugins.loader().forEach(parser -> loaded.putIfAbsent(parser.contentType(), parser));
+        BodyParsersCache.reload(loaded);
     }
 
     @Override
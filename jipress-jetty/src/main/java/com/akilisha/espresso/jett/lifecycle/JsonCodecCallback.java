@@ -0,0 +1,33 @@
+package com.akilisha.espresso.jett.lifecycle;
+
+import com.akilisha.espresso.api.application.IApplication;
+import com.akilisha.espresso.api.content.IJsonCodec;
+import com.akilisha.espresso.api.plugin.IPluginCallback;
+import com.akilisha.espresso.jett.content.JsonCodecCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.ServiceLoader;
+
+@Slf4j
+public class JsonCodecCallback implements IPluginCallback {
+
+    @Override
+    public void reloadPlugins(IApplication app) {
+        log.info("Start reloading plugins");
+        IJsonCodec loaded = ServiceLoader.load(IJsonCodec.class).findFirst().orElse(null);
+        if (loaded != null) {
+            loaded.init(Collections.emptyMap());
+        }
+        JsonCodecCache.reload(loaded);
+    }
+
+    @Override
+    public void loadPlugins(IApplication app) {
+        log.info("Start loading plugins");
+        for (IJsonCodec codec : ServiceLoader.load(IJsonCodec.class)) {
+            codec.init(Collections.emptyMap());
+            JsonCodecCache.register(codec);
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.akilisha.espresso.jett.view.ViewEnginePlugins;
 import com.akilisha.espresso.jett.view.ViewEnginesCache;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.ServiceLoader;
 
 @Slf4j
@@ -16,8 +18,10 @@ public class ViewEnginesCallback implements IPluginCallback {
     @Override
     public void reloadPlugins(IApplication app) {
         log.info("Start reloading plugins");
-        ViewEnginesCache.deregister();
-        this.loadPlugins(app);
+        IViewEnginePlugin plugins = new ViewEnginePlugins(ServiceLoader.load(IViewEngine.class));
+        Map<String, IViewEngine> loaded = new LinkedHashMap<>();
+        plugins.loader().forEach(engine -> loaded.putIfAbsent(engine.name(), engine));
+        ViewEnginesCache.reload(loaded);
     }
 
     @Override
@@ -3,48 +3,86 @@ package com.akilisha.espresso.jett.request;
 import com.akilisha.espresso.api.application.AppSettings;
 import com.akilisha.espresso.api.application.IApplication;
 import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.content.IMimeType;
+import com.akilisha.espresso.api.content.MediaType;
+import com.akilisha.espresso.api.content.UnsupportedMediaTypeException;
 import com.akilisha.espresso.api.request.IRequest;
 import com.akilisha.espresso.api.request.ReqCookies;
 import com.akilisha.espresso.jett.content.BodyParsersCache;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.Cookie;
-import lombok.RequiredArgsConstructor;
 import org.eclipse.jetty.server.Request;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.akilisha.espresso.api.request.ReqCookies.*;
 
-@RequiredArgsConstructor
 public class Req implements IRequest {
 
-    final IApplication app;
-    final Request request;
-    final Map<String, String> params;
-    final Map<String, List<String>> query;
+    IApplication app;
+    Request request;
+    Map<String, String> params;
+    Map<String, List<String>> query;
 
     private Map<String, Object> body;
 
+    public Req() {
+    }
+
+    public Req(IApplication app, Request request, Map<String, String> params, Map<String, List<String>> query) {
+        this.init(app, request, params, query);
+    }
+
+    public final Req init(IApplication app, Request request, Map<String, String> params, Map<String, List<String>> query) {
+        this.app = app;
+        this.request = request;
+        this.params = params;
+        this.query = query;
+        this.body = null;
+        return this;
+    }
+
+    public final void recycle() {
+        this.init(null, null, null, null);
+    }
+
+    private Request request() {
+        //a recycled instance has no request, so a handler still holding on to it after 'end()' fails right away
+        if (this.request == null) {
+            throw new IllegalStateException("This request has already ended and cannot be used any more");
+        }
+        return this.request;
+    }
+
     @Override
     public IApplication app() {
+        request();
         return this.app;
     }
 
     @Override
     public String baseUrl() {
-        return this.request.getContext().getContextPath();
+        return request().getContext().getContextPath();
     }
 
     @Override
     public <T> T body(Function<byte[], T> converter) {
         try {
             if (this.body == null) {
-                IBodyParser parser = BodyParsersCache.parser(request.getContentType());
-                byte[] bytes = (byte[]) parser.read(this);
+                byte[] bytes = (byte[]) parser().read(this);
                 return converter.apply(bytes);
             }
             return null;
@@ -57,8 +95,7 @@ public class Req implements IRequest {
     public Map<String, Object> body() {
         try {
             if (this.body == null) {
-                IBodyParser parser = BodyParsersCache.parser(request.getContentType());
-                this.body = parser.read(this, Map.class);
+                this.body = parser().read(this, Map.class);
             }
             return this.body;
         } catch (IOException e) {
@@ -69,18 +106,26 @@ public class Req implements IRequest {
     @Override
     public void upload() {
         try {
-            IBodyParser parser = BodyParsersCache.parser(request.getContentType());
-            parser.read(this);
+            parser().read(this);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private IBodyParser parser() {
+        String contentType = request().getContentType();
+        IBodyParser parser = BodyParsersCache.parser(contentType);
+        if (parser == null) {
+            throw new UnsupportedMediaTypeException(contentType);
+        }
+        return parser;
+    }
+
     @Override
     public ReqCookies cookies() {
         ReqCookies cookies = new ReqCookies();
-        if (request.getCookies() != null) {
-            for (Cookie cookie : request.getCookies()) {
+        if (request().getCookies() != null) {
+            for (Cookie cookie : request().getCookies()) {
                 Map<String, Object> values = new LinkedHashMap<>();
                 values.put(NAME, cookie.getName());
                 values.put(HTTP_ONLY, cookie.isHttpOnly());
@@ -98,20 +143,20 @@ public class Req implements IRequest {
 
     @Override
     public String hostname() {
-        return this.request.getRemoteHost();
+        return request().getRemoteHost();
     }
 
     @Override
     public String ip() {
-        return this.request.getRemoteAddr();
+        return request().getRemoteAddr();
     }
 
     @Override
     public List<String> ips() {
         boolean trustProxy = Boolean.parseBoolean(
-                Objects.requireNonNullElse(app.get(AppSettings.Setting.TRUST_PROXY.property), false).toString());
+                Objects.requireNonNullElse(app().get(AppSettings.Setting.TRUST_PROXY.property), false).toString());
         if (trustProxy) {
-            String forwardedIp = Objects.requireNonNullElse(request.getHeader("X-Forwarded-For"), "");
+            String forwardedIp = Objects.requireNonNullElse(request().getHeader("X-Forwarded-For"), "");
             return List.of(forwardedIp.split(","));
         }
 
@@ -120,61 +165,65 @@ public class Req implements IRequest {
 
     @Override
     public String method() {
-        return this.request.getMethod();
+        return request().getMethod();
     }
 
     @Override
     public String originalUrl() {
-        return this.request.getOriginalURI();
+        return request().getOriginalURI();
     }
 
     @Override
     public String param(String name) {
-        if (this.params.containsKey(name)) {
-            return this.params.get(name);
-        }
-        return null;
+        request();
+        return this.params.get(name);
     }
 
     @Override
     public <T> T param(String name, Function<String, T> converter) {
-        if (this.params.containsKey(name)) {
-            return converter.apply(this.params.get(name));
+        request();
+        String value = this.params.get(name);
+        if (value != null) {
+            return converter.apply(value);
         }
         return null;
     }
 
     @Override
     public Map<String, String> params() {
+        request();
         return Collections.unmodifiableMap(this.params);
     }
 
     @Override
     public String path() {
-        return this.request.getPathInfo();
+        return request().getPathInfo();
     }
 
     @Override
     public String protocol() {
-        return this.request.getProtocol();
+        return request().getProtocol();
     }
 
     @Override
     public Map<String, List<String>> query() {
+        request();
         return Collections.unmodifiableMap(this.query);
     }
 
     @Override
     public <T> List<T> query(String name, Function<String, T> converter) {
-        if (this.query.containsKey(name)) {
-            return this.query.get(name).stream().map(converter).collect(Collectors.toList());
+        request();
+        List<String> values = this.query.get(name);
+        if (values != null) {
+            return values.stream().map(converter).collect(Collectors.toList());
         }
         return Collections.emptyList();
     }
 
     @Override
     public Boolean secure() {
-        return this.request.isSecure();
+        return request().isSecure();
     }
 
     @Override
@@ -184,8 +233,8 @@ public class Req implements IRequest {
 
     @Override
     public String[] subdomains() {
-        int subDomainOffset = app.get(AppSettings.Setting.SUBDOMAIN_OFFSET.property, o -> Integer.parseInt(o.toString()));
-        String[] splits = request.getRemoteAddr().split("\\.");
+        int subDomainOffset = app().get(AppSettings.Setting.SUBDOMAIN_OFFSET.property, o -> Integer.parseInt(o.toString()));
+        String[] splits = request().getRemoteAddr().split("\\.");
         if (splits.length > subDomainOffset) {
             String[] result = new String[splits.length - subDomainOffset];
             System.arraycopy(splits, 0, result, 0, result.length);
@@ -196,41 +245,48 @@ public class Req implements IRequest {
 
     @Override
     public boolean xhr() {
-        return this.request.getHeader("X-Requested-With").matches("XMLHttpRequest");
+        return request().getHeader("X-Requested-With").matches("XMLHttpRequest");
     }
 
     @Override
     public Boolean accepts(String... types) {
-        String header = this.request.getHeader("Accept");
-        return header != null && Arrays.stream(types).anyMatch(header::contains);
+        // weighs the Accept header's ranges and q-values, so 'text/*' accepts 'text/html' and 'text/html;q=0' refuses it
+        List<String> mimeTypes = Arrays.stream(types).map(Req::mimeType).collect(Collectors.toList());
+        return MediaType.negotiate(request().getHeader("Accept"), mimeTypes) != null;
+    }
+
+    // 'json' or 'html' stand for their mime types, the same way the file extensions do
+    private static String mimeType(String type) {
+        return type.indexOf('/') > -1 ? type : IMimeType.mapping.getOrDefault("." + type, type);
     }
 
     @Override
     public String get(String headerName) {
-        return Objects.requireNonNullElse(this.request.getHeader(headerName), "undefined");
+        return Objects.requireNonNullElse(request().getHeader(headerName), "undefined");
     }
 
     @Override
     public Boolean is(String contentType) {
-        String header = this.request.getHeader("Content-Type");
-        return header != null && header.equals(contentType);
+        // parameters like the charset are not part of the type, and the type may be a range like 'text/*'
+        String header = request().getHeader("Content-Type");
+        return header != null && MediaType.parse(mimeType(contentType)).includes(MediaType.parse(header));
     }
 
     @Override
     public Object getAttr(String name) {
-        return this.request.getAttribute(name);
+        return request().getAttribute(name);
     }
 
     @Override
     public void setAttr(String name, Object attr) {
-        this.request.setAttribute(name, attr);
+        request().setAttribute(name, attr);
     }
 
     @Override
     public byte[] readSync() throws IOException {
         byte[] bytes = new byte[8192];
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (InputStream str = this.request.getInputStream()) {
+        try (InputStream str = request().getInputStream()) {
             int size;
             while ((size = str.read(bytes)) > -1) {
                 baos.write(bytes, 0, size);
@@ -239,8 +295,95 @@ public class Req implements IRequest {
         return baos.toByteArray();
     }
 
+    @Override
+    public InputStream inputStream() throws IOException {
+        return request().getInputStream();
+    }
+
+    @Override
+    public void readAsync(Consumer<ByteBuffer> onChunk, Runnable onDone, Consumer<Throwable> onError) {
+        try {
+            //the pool thread is released as soon as the handler returns, and the listener is called back as bytes arrive
+            AsyncContext async = request().isAsyncStarted() ? request().getAsyncContext() : request().startAsync();
+            ServletInputStream in = request().getInputStream();
+            BodyReader reader = new BodyReader(in, onChunk, onDone, onError);
+            async.addListener(reader);
+            in.setReadListener(reader);
+        } catch (IOException | IllegalStateException e) {
+            onError.accept(e);
+        }
+    }
+
+    // hands the body over as it arrives, and tells onError when the request times out or ends before all of it was read.
+    // Ending the request is left to the callbacks, or else to the route handler once the async timeout is up
+    private static class BodyReader implements ReadListener, AsyncListener {
+
+        final byte[] buffer = new byte[8192];
+        final AtomicBoolean finished = new AtomicBoolean();
+        final ServletInputStream in;
+        final Consumer<ByteBuffer> onChunk;
+        final Runnable onDone;
+        final Consumer<Throwable> onError;
+        volatile Throwable cause;
+
+        BodyReader(ServletInputStream in, Consumer<ByteBuffer> onChunk, Runnable onDone, Consumer<Throwable> onError) {
+            this.in = in;
+            this.onChunk = onChunk;
+            this.onDone = onDone;
+            this.onError = onError;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            int size;
+            while (!finished.get() && in.isReady() && (size = in.read(buffer)) > -1) {
+                try {
+                    onChunk.accept(ByteBuffer.wrap(buffer, 0, size));
+                } catch (RuntimeException e) {
+                    this.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void onAllDataRead() {
+            if (finished.compareAndSet(false, true)) {
+                onDone.run();
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (finished.compareAndSet(false, true)) {
+                onError.accept(error);
+            }
+        }
+
+        //a timeout or a broken connection is only passed on once the request has ended, which whoever is waiting on the
+        //body must not be resumed ahead of
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            this.cause = new TimeoutException("The request timed out before its body was read");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            this.cause = event.getThrowable();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            this.onError(cause != null ? cause : new IOException("The request ended before its body was read"));
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
     @Override
     public <R> R rawRequest(Class<R> type) {
-        return type.cast(this.request);
+        return type.cast(request());
     }
 }
@@ -0,0 +1,98 @@
+package com.akilisha.espresso.jett.response;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import jakarta.servlet.http.HttpServletRequest;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+public class ETag {
+
+    public static final String WEAK = "weak";
+    public static final String STRONG = "strong";
+
+    static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private ETag() {
+        //hide constructor
+    }
+
+    // the kind of ETag to generate for the app's 'etag' setting, or null if it is turned off. 'true' means weak
+    public static String mode(Object setting) {
+        if (setting == null || "false".equalsIgnoreCase(setting.toString())) {
+            return null;
+        }
+        return STRONG.equalsIgnoreCase(setting.toString()) ? STRONG : WEAK;
+    }
+
+    // the same, read from an app's settings. Sub-apps and routers have none of their own, and get the default
+    public static String forSettings(AppSettings settings) {
+        return settings != null ? mode(settings.get(AppSettings.Setting.ETAG)) : WEAK;
+    }
+
+    public static String of(byte[] body, int offset, int length, boolean weak) {
+        MessageDigest digest = digests.get();
+        digest.update(body, offset, length);
+        String hash = Base64.getEncoder().withoutPadding().encodeToString(digest.digest()).substring(0, 27);
+        return String.format(weak ? "W/\"%x-%s\"" : "\"%x-%s\"", length, hash);
+    }
+
+    public static String of(long size, long lastModified, boolean weak) {
+        return String.format(weak ? "W/\"%x-%x\"" : "\"%x-%x\"", size, lastModified);
+    }
+
+    // weak comparison, which is what If-None-Match calls for
+    public static boolean matches(String tag, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        return (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag.startsWith("W/") ? etag.substring(2) : etag);
+    }
+
+    // strong comparison, which is what If-Range calls for - a weak tag never matches, not even itself
+    public static boolean matchesStrongly(String tag, String etag) {
+        if (etag == null || tag.startsWith("W/") || etag.startsWith("W/")) {
+            return false;
+        }
+        return tag.equals(etag);
+    }
+
+    // true if the client's copy of a GET or HEAD response is still current. If-None-Match takes precedence over
+    // If-Modified-Since, and either is skipped when there is no etag or last-modified time (-1) to compare with
+    public static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        if (!HttpMethod.GET.is(request.getMethod()) && !HttpMethod.HEAD.is(request.getMethod())) {
+            return false;
+        }
+        String ifNoneMatch = request.getHeader(HttpHeader.IF_NONE_MATCH.asString());
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                if (tag.trim().equals("*") || matches(tag.trim(), etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        long since = dateHeader(request, HttpHeader.IF_MODIFIED_SINCE.asString());
+        return since > -1 && lastModified / 1000 <= since / 1000;
+    }
+
+    public static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1; //not a date, which is the same as not being there
+        }
+    }
+}
@@ -1,55 +1,114 @@
 package com.akilisha.espresso.jett.response;
 
+import com.akilisha.espresso.api.application.AppSettings;
 import com.akilisha.espresso.api.application.IApplication;
 import com.akilisha.espresso.api.attachment.AttachmentOptions;
 import com.akilisha.espresso.api.attachment.AttachmentOptionsBuilder;
 import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.content.IJsonCodec;
 import com.akilisha.espresso.api.content.IMimeType;
+import com.akilisha.espresso.api.content.MediaType;
 import com.akilisha.espresso.api.cookie.CookieOptions;
 import com.akilisha.espresso.api.response.IResponse;
+import com.akilisha.espresso.jett.application.Application;
 import com.akilisha.espresso.jett.content.BodyParsersCache;
+import com.akilisha.espresso.jett.content.JsonCodecCache;
 import com.akilisha.espresso.jett.cookie.CookieBuilder;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.Cookie;
-import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.Path;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static com.akilisha.espresso.api.content.IContentType.APPLICATION_JSON;
+import static com.akilisha.espresso.api.content.IContentType.APPLICATION_OCTET_STREAM;
+import static com.akilisha.espresso.api.content.IContentType.TEXT_HTML;
 
-@RequiredArgsConstructor
 public class Res implements IResponse {
 
-    final IApplication app;
-    final Request request;
-    final Response response;
+    static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
+    IApplication app;
+    Request request;
+    Response response;
     String attachmentType = ".html";
     Map<String, Object> local = new HashMap<>();
+    //the mapped file callback runs on a Jetty thread, while the handler may still call 'end()' on its own thread
+    final AtomicBoolean completed = new AtomicBoolean();
+    volatile boolean sending;
+
+    public Res() {
+    }
+
+    public Res(IApplication app, Request request, Response response) {
+        this.init(app, request, response);
+    }
+
+    public final Res init(IApplication app, Request request, Response response) {
+        this.app = app;
+        this.request = request;
+        this.response = response;
+        this.completed.set(false);
+        this.sending = false;
+        return this;
+    }
+
+    public final void recycle() {
+        this.init(null, null, null);
+        this.attachmentType = ".html";
+        this.local.clear();
+    }
+
+    private Request request() {
+        //a recycled instance has no request, so a handler still holding on to it after 'end()' fails right away
+        if (this.request == null) {
+            throw new IllegalStateException("This response has already ended and cannot be used any more");
+        }
+        return this.request;
+    }
+
+    private Response response() {
+        request();
+        return this.response;
+    }
 
     @Override
     public IApplication app() {
+        request();
         return this.app;
     }
 
     @Override
     public void append(String header, String value) {
-        this.response.setHeader(header, value);
+        response().setHeader(header, value);
     }
 
     @Override
     public void attachment() {
         // Content-Disposition: attachment
-        response.setHeader("Content-Disposition", "attachment");
+        response().setHeader("Content-Disposition", "attachment");
     }
 
     @Override
@@ -57,43 +116,43 @@ public class Res implements IResponse {
         // Content-Disposition: attachment; filename="logo.png"
         // Content-Type: image/png
         String ext = fileName.substring(fileName.lastIndexOf("."));
-        response.setHeader("Content-Disposition", String.format("attachment; filename=\"%s\"", fileName));
-        response.setHeader(HttpHeader.CONTENT_TYPE.name(), IMimeType.mapping.get(ext));
+        response().setHeader("Content-Disposition", String.format("attachment; filename=\"%s\"", fileName));
+        response().setHeader(HttpHeader.CONTENT_TYPE.name(), IMimeType.mapping.get(ext));
     }
 
     @Override
     public void contentType(String contentType) {
-        this.response.setContentType(contentType);
+        response().setContentType(contentType);
     }
 
     @Override
     public void cookie(String name, String value) {
-        this.response.addCookie(new Cookie(name, value));
+        response().addCookie(new Cookie(name, value));
     }
 
     @Override
     public void cookie(String name, String value, CookieOptions options) {
-        this.response.addCookie(CookieBuilder.newBuilder(name, value, options)
+        response().addCookie(CookieBuilder.newBuilder(name, value, options)
                 .maxAge((TimeUnit) options.getOrDefault(CookieOptions.Option.TIME_UNIT, TimeUnit.MINUTES),
                         (Integer) options.getOrDefault(CookieOptions.Option.MAX_AGE, 30))
                 .secure(false)
-                .build(request));
+                .build(request()));
     }
 
     @Override
     public void clearCookie(String name) {
         Cookie cookie = new Cookie(name, null); // Not necessary, but saves bandwidth.
         cookie.setMaxAge(0); // Don't set to -1, or it will become a session cookie!
-        this.response.addCookie(cookie);
+        response().addCookie(cookie);
     }
 
     @Override
     public void clearCookie(String name, CookieOptions options) {
         // Cookies are tied to a specific path. Attention should be paid to set the same path during cookie's removal
         // as it was as during cookie's creation.
-        Cookie cookie = CookieBuilder.newBuilder(name, null, options).build(request);
+        Cookie cookie = CookieBuilder.newBuilder(name, null, options).build(request());
         cookie.setMaxAge(0); // Don't set to -1, or it will become a session cookie!
-        this.response.addCookie(cookie);
+        response().addCookie(cookie);
     }
 
     @Override
@@ -103,7 +162,7 @@ public class Res implements IResponse {
 
     @Override
     public void download(String filePath, String fileName, AttachmentOptions options) {
-        this.download(filePath, fileName, AttachmentOptionsBuilder.newBuilder().build(), error -> {
+        this.download(filePath, fileName, options, error -> {
             if (error != null) {
                 error.printStackTrace(System.err);
             }
@@ -113,34 +172,90 @@ public class Res implements IResponse {
     @Override
     public void download(String filePath, String fileName, AttachmentOptions options, Consumer<Exception> callback) {
         this.attachment(fileName);
-        File file = Path.of(filePath, fileName).toFile();
-        this.writeFile(file, options, callback);
+        Object root = options != null ? options.get(AttachmentOptions.Option.ROOT) : null;
+        Path path = resolve(root, Path.of(filePath, fileName));
+        if (path == null) {
+            callback.accept(new AccessDeniedException(Path.of(filePath, fileName).toString(), null, "outside of the root directory"));
+            return;
+        }
+        this.writeFile(path.toFile(), options, callback);
     }
 
     @Override
     public void encoding(Charset charset) {
-        this.response.setCharacterEncoding(charset.name());
+        response().setCharacterEncoding(charset.name());
     }
 
     @Override
     public void end() {
-        this.request.setHandled(true);
+        request().setHandled(true);
+        if (request().isAsyncStarted() && !this.sending && this.completed.compareAndSet(false, true)) {
+            request().getAsyncContext().complete(); //the response was produced off the dispatch thread, so close it out here
+        }
     }
 
     @Override
     public void end(Object data, String encoding) {
-        this.response.setCharacterEncoding(encoding);
+        response().setCharacterEncoding(encoding);
         this.writeSync(data);
         this.end();
     }
 
+    @Override
+    public void format(Object data) {
+        // json goes first, so that it is the one picked when the client takes anything
+        List<String> writable = new ArrayList<>();
+        for (String type : BodyParsersCache.contentTypes()) {
+            if (BodyParsersCache.parser(type).writes()) {
+                writable.add(type.equals(APPLICATION_JSON) ? 0 : writable.size(), type);
+            }
+        }
+        response().addHeader(HttpHeader.VARY.asString(), HttpHeader.ACCEPT.asString());
+        String type = MediaType.negotiate(request().getHeader(HttpHeader.ACCEPT.asString()), writable);
+        if (type == null) {
+            this.sendStatus(HttpStatus.NOT_ACCEPTABLE_406);
+        } else if (type.equals(APPLICATION_JSON)) {
+            this.json(data);
+        } else {
+            BodyParsersCache.parser(type).write(this, data);
+        }
+    }
+
     @Override
     public String get(String headerName) {
-        return response.getHeader(headerName);
+        return response().getHeader(headerName);
     }
 
     @Override
     public void json(Object json) {
+        IJsonCodec codec = JsonCodecCache.codec();
+        if (codec != null) {
+            //serialize straight into the response stream, without going through a String first
+            try {
+                response().setContentType(APPLICATION_JSON);
+                response().setCharacterEncoding(StandardCharsets.UTF_8.name());
+                String etagMode = etagMode();
+                OutputStream out = response().getOutputStream();
+                if (etagMode == null) {
+                    codec.write(json, out);
+                } else {
+                    //a body that fits in the response buffer is hashed before anything is written, so that a 304 can
+                    //still go out instead. A bigger one is streamed as it is, without an etag
+                    BodyBuffer body = new BodyBuffer(response().getBufferSize(), out);
+                    codec.write(json, body);
+                    if (!body.passedOn) {
+                        if (sendNotModified(ETag.of(body.buf, 0, body.count, ETag.WEAK.equals(etagMode)), -1)) {
+                            return;
+                        }
+                        out.write(body.buf, 0, body.count);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            this.end();
+            return;
+        }
         IBodyParser parser = BodyParsersCache.parser(APPLICATION_JSON);
         parser.write(this, json);
     }
@@ -157,6 +272,7 @@ public class Res implements IResponse {
 
     @Override
     public Map<String, Object> locals() {
+        request();
         return this.local;
     }
 
@@ -179,34 +295,69 @@ public class Res implements IResponse {
 
     @Override
     public void render(String viewName) {
-        this.app.render(viewName, Collections.emptyMap(), this::send);
+        this.render(viewName, Collections.emptyMap());
     }
 
     @Override
     public void render(String viewName, BiConsumer<Exception, String> consumer) {
-        this.app.render(viewName, Collections.emptyMap(), consumer);
+        app().render(viewName, Collections.emptyMap(), consumer);
     }
 
     @Override
     public void render(String viewName, Map<String, Object> context, BiConsumer<Exception, String> consumer) {
-        this.app.render(viewName, context, consumer);
+        app().render(viewName, context, consumer);
     }
 
     @Override
     public void render(String viewName, Map<String, Object> context) {
-        this.app.render(viewName, context, (err, content) -> {
-            if (err != null) {
-                status(500);
-                send(err.getMessage());
+        //the page goes out as it is rendered - chunked, since its length is not known up front
+        try {
+            status(200);
+            if (response().getContentType() == null) {
+                response().setContentType(TEXT_HTML);
+                response().setCharacterEncoding(StandardCharsets.UTF_8.name());
+            }
+            String etagMode = etagMode();
+            if (etagMode == null) {
+                app().render(viewName, context, response().getWriter());
             } else {
-                status(200);
-                send(content);
+                //as with json, a page that fits in the response buffer is held back and tagged, and a bigger one streams.
+                //Going by the HttpOutput leaves the writer free for the error message should the render fail
+                OutputStream out = response().getHttpOutput();
+                BodyBuffer body = new BodyBuffer(response().getBufferSize(), out);
+                Writer writer = new OutputStreamWriter(body, Charset.forName(response().getCharacterEncoding()));
+                app().render(viewName, context, writer);
+                writer.flush();
+                if (!body.passedOn) {
+                    if (sendNotModified(ETag.of(body.buf, 0, body.count, ETag.WEAK.equals(etagMode)), -1)) {
+                        return;
+                    }
+                    out.write(body.buf, 0, body.count);
+                }
             }
-        });
+        } catch (Exception err) {
+            if (response().isCommitted()) {
+                throw new RuntimeException(err); //part of the page has already gone out, so the status cannot change any more
+            }
+            response().resetBuffer();
+            status(500);
+            send(err.getMessage());
+            return;
+        }
+        this.end();
     }
 
     @Override
     public void send(String content) {
+        //as with json, only a body which fits in the response buffer gets an etag
+        String etagMode = etagMode();
+        if (etagMode != null && content != null && content.length() <= response().getBufferSize()) {
+            //the bytes writeSync puts on the wire - the content in the response's charset, and the line break after it
+            byte[] body = (content + System.lineSeparator()).getBytes(Charset.forName(response().getCharacterEncoding()));
+            if (sendNotModified(ETag.of(body, 0, body.length, ETag.WEAK.equals(etagMode)), -1)) {
+                return;
+            }
+        }
         this.writeSync(content);
         this.end();
     }
@@ -224,40 +375,206 @@ public class Res implements IResponse {
 
     @Override
     public void sendFile(String filePath, AttachmentOptions options, Consumer<Exception> callback) {
-        this.contentType(filePath.substring(filePath.lastIndexOf(".")));
-        File file = new File(filePath);
-        this.writeFile(file, options, callback);
+        AttachmentOptions fileOptions = options != null ? options : AttachmentOptionsBuilder.newBuilder().build();
+        Path path = resolve(fileOptions.get(AttachmentOptions.Option.ROOT), Path.of(filePath));
+        if (path == null) {
+            callback.accept(new AccessDeniedException(filePath, null, "outside of the root directory"));
+            return;
+        }
+        String ext = filePath.lastIndexOf(".") > -1 ? filePath.substring(filePath.lastIndexOf(".")) : "";
+        this.contentType(IMimeType.mapping.getOrDefault(ext, APPLICATION_OCTET_STREAM));
+        this.writeFile(path.toFile(), fileOptions, callback);
+    }
+
+    // the file's path within the 'root' option, if there is one, or null should it end up outside of it - by way of
+    // '..' segments, say. CachingResourceHandler holds the files it serves to its base directory in the same way
+    private static Path resolve(Object root, Path file) {
+        if (root == null) {
+            return file;
+        }
+        Path base = Path.of(root.toString()).toAbsolutePath().normalize();
+        Path path = base.resolve(file).normalize();
+        return path.startsWith(base) ? path : null;
     }
 
     private void writeFile(File file, AttachmentOptions options, Consumer<Exception> callback) {
-        try (InputStream in = new FileInputStream(file);
-             OutputStream out = this.response.getOutputStream()) {
+        AttachmentOptions fileOptions = options != null ? options : AttachmentOptionsBuilder.newBuilder().build();
+        if (!file.isFile()) {
+            callback.accept(new FileNotFoundException(file.getPath()));
+            return;
+        }
+        long size = file.length();
+        long modified = file.lastModified();
+        String etagMode = etagMode();
+        String etag = etagMode != null ? ETag.of(size, modified, ETag.WEAK.equals(etagMode)) : null;
+
+        //headers from the options go first, so that the ones worked out below take precedence
+        Object headers = fileOptions.get(AttachmentOptions.Option.HEADERS);
+        if (headers instanceof Map<?, ?> extra) {
+            extra.forEach((name, value) -> {
+                if (!"Content-Disposition".equalsIgnoreCase(name.toString())) {
+                    response().setHeader(name.toString(), String.valueOf(value));
+                }
+            });
+        }
+        if (Boolean.TRUE.equals(fileOptions.get(AttachmentOptions.Option.CACHE_CONTROL))) {
+            long maxAge = Long.parseLong(String.valueOf(fileOptions.getOrDefault(AttachmentOptions.Option.MAX_AGE, 0))) / 1000;
+            boolean immutable = Boolean.TRUE.equals(fileOptions.get(AttachmentOptions.Option.IMMUTABLE));
+            response().setHeader(HttpHeader.CACHE_CONTROL.asString(), String.format("public, max-age=%d%s", maxAge, immutable ? ", immutable" : ""));
+        }
+        boolean lastModified = Boolean.TRUE.equals(fileOptions.get(AttachmentOptions.Option.LAST_MODIFIED));
+        if (lastModified) {
+            response().setDateHeader(HttpHeader.LAST_MODIFIED.asString(), modified);
+        }
+        if (sendNotModified(etag, lastModified ? modified : -1)) {
+            return;
+        }
 
-            byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        ByteRange range = null;
+        if (Boolean.TRUE.equals(fileOptions.get(AttachmentOptions.Option.ACCEPT_RANGES))) {
+            response().setHeader(HttpHeader.ACCEPT_RANGES.asString(), "bytes");
+            if (rangeIsFresh(etag, modified)) {
+                range = ByteRange.parse(request().getHeader(HttpHeader.RANGE.asString()), size);
+            }
+        }
+        if (range == ByteRange.UNSATISFIABLE) {
+            response().setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response().setHeader(HttpHeader.CONTENT_RANGE.asString(), range.contentRange(size));
+            this.end();
+            return;
+        }
+        if (range != null) {
+            response().setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response().setHeader(HttpHeader.CONTENT_RANGE.asString(), range.contentRange(size));
+        }
+        long start = range != null ? range.start : 0;
+        long length = range != null ? range.length() : size;
+        response().setContentLengthLong(length);
+        if (HttpMethod.HEAD.is(request().getMethod())) {
+            this.end();
+            return;
+        }
+        this.transfer(file.toPath(), start, length, callback);
+    }
+
+    private void transfer(Path path, long start, long length, Consumer<Exception> callback) {
+        HttpOutput out = response().getHttpOutput();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (length <= Integer.MAX_VALUE && request().isAsyncSupported()) {
+                //the mapped region is handed to the socket without being copied onto the heap, and the thread is let go
+                //while it is being written
+                ByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                AsyncContext async = request().isAsyncStarted() ? request().getAsyncContext() : request().startAsync();
+                //a large file going out to a slow client would run past any deadline for the whole request, so the write
+                //is only bounded by the connection's idle timeout, which fails it once the client stops reading
+                async.setTimeout(0);
+                AtomicBoolean finished = new AtomicBoolean();
+                Consumer<Throwable> failed = x -> {
+                    if (finished.compareAndSet(false, true)) {
+                        sending = false;
+                        callback.accept(x instanceof Exception e ? e : new IOException(x));
+                        end();
+                    }
+                };
+                async.addListener(new AsyncListener() {
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        failed.accept(new TimeoutException("The request timed out while the file was still being sent"));
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        failed.accept(event.getThrowable());
+                    }
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                this.sending = true;
+                out.sendContent(content, new Callback() {
+                    @Override
+                    public void succeeded() {
+                        if (finished.compareAndSet(false, true)) {
+                            sending = false;
+                            end();
+                        }
+                    }
+
+                    @Override
+                    public void failed(Throwable x) {
+                        failed.accept(x);
+                    }
+                });
+                return;
+            }
 
-            int numBytesRead;
-            while ((numBytesRead = in.read(buffer)) > 0) {
-                out.write(buffer, 0, numBytesRead);
+            //too large to map in one go, so it is written a region at a time - still without going through a byte[]
+            for (long position = start; position < start + length; position += MAPPED_REGION_SIZE) {
+                out.write(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, start + length - position)));
             }
+            out.close();
         } catch (IOException e) {
+            this.sending = false;
             callback.accept(e);
         }
     }
 
+    private boolean rangeIsFresh(String etag, long modified) {
+        //a range is only honoured if the client's copy is still the current one - otherwise the whole file is sent
+        String ifRange = request().getHeader(HttpHeader.IF_RANGE.asString());
+        if (ifRange == null) {
+            return true;
+        }
+        //a weak etag cannot tell two versions of the file apart byte for byte, so it never lets a range through
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ETag.matchesStrongly(ifRange.trim(), etag);
+        }
+        long since = ETag.dateHeader(request(), HttpHeader.IF_RANGE.asString());
+        return since > -1 && modified / 1000 <= since / 1000;
+    }
+
+    private String etagMode() {
+        //only the entry app has settings, so sub-apps and routers get the default
+        IApplication current = app();
+        if (current instanceof Application application) {
+            return ETag.forSettings(application.getSettings());
+        }
+        return current != null ? ETag.mode(current.get(AppSettings.Setting.ETAG.property)) : null;
+    }
+
+    // sets the ETag, and answers with a 304 instead of the body when the client's copy is still current
+    private boolean sendNotModified(String etag, long lastModified) {
+        if (etag != null) {
+            response().setHeader(HttpHeader.ETAG.asString(), etag);
+        }
+        int status = response().getStatus();
+        if (status >= 200 && status < 300 && ETag.notModified(request(), etag, lastModified)) {
+            response().setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            this.end();
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public void sendStatus(int status) {
-        this.response.setStatus(status);
+        response().setStatus(status);
         this.send("");
     }
 
     @Override
     public void set(String headerName, String value) {
-        this.response.setHeader(headerName, value);
+        response().setHeader(headerName, value);
     }
 
     @Override
     public void status(int status) {
-        this.response.setStatus(status);
+        response().setStatus(status);
     }
 
     @Override
@@ -268,10 +585,62 @@ public class Res implements IResponse {
     @Override
     public void writeSync(Object content) {
         try {
-            PrintWriter printer = this.response.getWriter();
+            PrintWriter printer = response().getWriter();
             printer.println(content);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
+
+    // holds on to a body for as long as it fits within the limit. Once it grows past that, what was held is written out
+    // and everything after it goes straight through to the target
+    static class BodyBuffer extends OutputStream {
+
+        final int limit;
+        final OutputStream target;
+        byte[] buf;
+        int count;
+        boolean passedOn;
+
+        BodyBuffer(int limit, OutputStream target) {
+            this.limit = limit;
+            this.target = target;
+            this.buf = new byte[Math.min(DEFAULT_BUFFER_SIZE, limit)];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (hold(1)) {
+                buf[count++] = (byte) b;
+            } else {
+                target.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (hold(len)) {
+                System.arraycopy(b, off, buf, count, len);
+                count += len;
+            } else {
+                target.write(b, off, len);
+            }
+        }
+
+        private boolean hold(int len) throws IOException {
+            if (passedOn) {
+                return false;
+            }
+            if (count + len > limit) {
+                passedOn = true;
+                target.write(buf, 0, count);
+                buf = null;
+                return false;
+            }
+            if (count + len > buf.length) {
+                buf = Arrays.copyOf(buf, Math.min(limit, Math.max(count + len, buf.length * 2)));
+            }
+            return true;
+        }
+    }
 }
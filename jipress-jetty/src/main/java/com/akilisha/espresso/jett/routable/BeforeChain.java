@@ -0,0 +1,90 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// The "before" chain of a single route. Which 'all' pattern a request matches first is worked out up front wherever
+// the route alone decides it, so that only the patterns that may or may not match are left to try on a request
+final class BeforeChain {
+
+    static final String REGEX_META = "\\^$.|?*+()[]{}";
+    static final String QUANTIFIERS = "?*+{";
+
+    final Pattern[] patterns;
+    final IMiddleware[][] chains;
+    final IMiddleware[] otherwise;
+
+    private BeforeChain(Pattern[] patterns, IMiddleware[][] chains, IMiddleware[] otherwise) {
+        this.patterns = patterns;
+        this.chains = chains;
+        this.otherwise = otherwise;
+    }
+
+    static BeforeChain resolve(String routeRegex, IMiddleware[] handlers, Pattern[] befores, IMiddleware[][] beforeHandlers) {
+        String prefix = literalPrefix(routeRegex);
+        boolean literal = prefix.length() == routeRegex.length();
+        List<Pattern> patterns = new ArrayList<>();
+        List<IMiddleware[]> chains = new ArrayList<>();
+        IMiddleware[] otherwise = handlers;
+        for (int i = 0; i < befores.length; i++) {
+            //a literal route only ever matches its own path, so the first 'all' pattern it is matched by is known now
+            if (literal ? befores[i].matcher(routeRegex).matches() : matchesAll(befores[i].pattern(), prefix)) {
+                otherwise = merge(beforeHandlers[i], handlers);
+                break;
+            }
+            if (!literal && overlaps(prefix, literalPrefix(befores[i].pattern()))) {
+                patterns.add(befores[i]);
+                chains.add(merge(beforeHandlers[i], handlers));
+            }
+        }
+        return new BeforeChain(patterns.toArray(Pattern[]::new), chains.toArray(IMiddleware[][]::new), otherwise);
+    }
+
+    IMiddleware[] select(String path) {
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matcher(path).matches()) {
+                return chains[i];
+            }
+        }
+        return otherwise;
+    }
+
+    // the text which every string matched by the regex starts with, or an empty one when that cannot be told
+    static String literalPrefix(String regex) {
+        if (regex.startsWith("^") || regex.indexOf('|') > -1) {
+            return "";
+        }
+        for (int i = 0; i < regex.length(); i++) {
+            char ch = regex.charAt(i);
+            if (REGEX_META.indexOf(ch) > -1) {
+                //a quantifier makes the character before it optional or repeatable, so it is not part of the prefix
+                return regex.substring(0, QUANTIFIERS.indexOf(ch) > -1 ? Math.max(0, i - 1) : i);
+            }
+        }
+        return regex;
+    }
+
+    // whether an 'all' pattern like '/api/.*' matches every path which starts with the given prefix
+    static boolean matchesAll(String before, String prefix) {
+        if (!before.endsWith(".*")) {
+            return false;
+        }
+        String head = before.substring(0, before.length() - 2);
+        return literalPrefix(head).length() == head.length() && prefix.startsWith(head);
+    }
+
+    // paths with the two prefixes can only be matched by both patterns if one of the prefixes starts with the other
+    static boolean overlaps(String prefix, String other) {
+        return prefix.startsWith(other) || other.startsWith(prefix);
+    }
+
+    static IMiddleware[] merge(IMiddleware[] before, IMiddleware[] handlers) {
+        IMiddleware[] merged = new IMiddleware[before.length + handlers.length];
+        System.arraycopy(before, 0, merged, 0, before.length); //put "before" first
+        System.arraycopy(handlers, 0, merged, before.length, handlers.length);
+        return merged;
+    }
+}
@@ -8,15 +8,28 @@ import com.akilisha.espresso.api.routeable.IRoutable;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class ByMethod implements IRoutable {
 
-    Map<ReqMethod, IRoutable> methodRoutes = new EnumMap<>(ReqMethod.class);
+    public static final String RADIX_MATCHER = "radix";
+
+    final Map<ReqMethod, IRoutable> methodRoutes = new EnumMap<>(ReqMethod.class);
+    final Supplier<IRoutable> pathRoutes;
+
+    public ByMethod() {
+        //the matcher picked with the 'routeMatcher' option only takes over once the routes are compiled at start up
+        this(ByPathRegex::new);
+    }
+
+    public ByMethod(Supplier<IRoutable> pathRoutes) {
+        this.pathRoutes = pathRoutes;
+    }
 
     @Override
     public void store(ReqMethod method, String path, IMiddleware[] handlers) {
         if (!methodRoutes.containsKey(method)) {
-            methodRoutes.put(method, new ByPathRegex());
+            methodRoutes.put(method, pathRoutes.get());
         }
         methodRoutes.get(method).store(method, path, handlers);
     }
@@ -35,7 +48,7 @@ public class ByMethod implements IRoutable {
     public void store(String path, IMiddleware... handlers) {
         Arrays.stream(ReqMethod.values()).forEach(method -> {
             if (!methodRoutes.containsKey(method)) {
-                methodRoutes.put(method, new ByPathRegex());
+                methodRoutes.put(method, pathRoutes.get());
             }
         });
         methodRoutes.values().forEach(route -> route.store(path, handlers));
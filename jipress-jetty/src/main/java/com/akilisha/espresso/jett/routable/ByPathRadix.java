@@ -0,0 +1,317 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import com.akilisha.espresso.api.routeable.IRoutable;
+import com.akilisha.espresso.jett.application.PathUtils;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ByPathRadix implements IRoutable {
+
+    static final String REGEX_META = "\\^$.|?*+()[]{}";
+    static final Pattern PARAM_SEGMENT = Pattern.compile(":\\w+");
+
+    final Node root = new Node("");
+    final Set<String> paths = new HashSet<>();
+    final Map<String, IMiddleware[]> all = new LinkedHashMap<>();
+    final List<Route> routes = new ArrayList<>();
+    Pattern[] befores = new Pattern[0];
+    IMiddleware[][] beforeHandlers = new IMiddleware[0][];
+    int maxParams;
+
+    static boolean isStatic(String segment) {
+        if (segment.indexOf(':') > -1) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (REGEX_META.indexOf(segment.charAt(i)) > -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isParamValue(String path, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char ch = path.charAt(i);
+            if (!((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_' || ch == '-')) {
+                return false;
+            }
+        }
+        return end > start;
+    }
+
+    static int commonSegments(String label, String other) {
+        // longest common prefix which ends on a segment boundary in both labels, or -1 if none exists
+        int common = -1;
+        int max = Math.min(label.length(), other.length());
+        for (int i = 0; i <= max; i++) {
+            boolean labelEnd = i == label.length() || label.charAt(i) == '/';
+            boolean otherEnd = i == other.length() || other.charAt(i) == '/';
+            if (labelEnd && otherEnd) {
+                common = i;
+            }
+            if (i == max || label.charAt(i) != other.charAt(i)) {
+                break;
+            }
+        }
+        return common;
+    }
+
+    @Override
+    public void store(ReqMethod method, String path, IMiddleware... handlers) {
+        if (!paths.add(path)) {
+            throw new RuntimeException("This pattern is already matched");
+        }
+        Route route = new Route(path, paths.size(), handlers);
+        route.chain = BeforeChain.resolve(PathUtils.pathToRegex(path), handlers, befores, beforeHandlers);
+        routes.add(route);
+
+        //a regex literal cannot be broken down into segments, so it's matched against the full path from the root
+        if (path.startsWith("^") && path.endsWith("$")) {
+            root.regex = append(root.regex, route.regex());
+            return;
+        }
+
+        String[] segments = path.substring(path.startsWith("/") ? 1 : 0).split("/", -1);
+        List<String> params = new ArrayList<>();
+        Node node = root;
+        int i = 0;
+        while (i < segments.length) {
+            String segment = segments[i];
+            if (isStatic(segment)) {
+                //compress consecutive static segments into a single edge label
+                StringBuilder label = new StringBuilder(segment);
+                while (i + 1 < segments.length && isStatic(segments[i + 1])) {
+                    label.append('/').append(segments[++i]);
+                }
+                node = node.insert(label.toString());
+            } else if (PARAM_SEGMENT.matcher(segment).matches()) {
+                params.add(segment.substring(1));
+                this.maxParams = Math.max(this.maxParams, params.size());
+                if (node.param == null) {
+                    node.param = new Node(segment);
+                }
+                node = node.param;
+            } else {
+                //this includes a trailing '*', which ByPathRegex reads as "any number of '/'", not "the rest of the path"
+                node.regex = append(node.regex, route.regex());
+                return;
+            }
+            i += 1;
+        }
+
+        if (node.terminal == null) {
+            //an earlier route with the same shape (e.g. '/:id' vs '/:name') would always be selected first anyway
+            node.terminal = route.params(params);
+        }
+    }
+
+    @Override
+    public IMatched select(ReqMethod method, String path) {
+        IMatched matchedInfo = new MatchedInfo();
+
+        Selected selected = new Selected(new int[maxParams * 2]);
+        if (path.startsWith("/")) {
+            find(root, path, 1, 0, selected);
+        }
+
+        if (selected.route != null) {
+            matchedInfo.setParams(selected.params(path));
+            matchedInfo.setHandlers(selected.route.chain.select(path));
+        }
+        return matchedInfo;
+    }
+
+    private void find(Node node, String path, int pos, int depth, Selected selected) {
+        int length = path.length();
+
+        // 'pos' is the start of the next segment, or one past the end of the path once all segments are consumed
+        if (pos > length) {
+            selected.offer(node.terminal, depth, null);
+        }
+
+        for (Route route : node.regex) {
+            if (route.order < selected.order()) {
+                Matcher matcher = route.pattern.matcher(path);
+                if (matcher.matches()) {
+                    selected.offer(route, 0, matcher);
+                }
+            }
+        }
+
+        if (pos > length) {
+            return;
+        }
+
+        for (Node child : node.statics) {
+            String label = child.label;
+            int end = pos + label.length();
+            if (end <= length && path.regionMatches(pos, label, 0, label.length()) && (end == length || path.charAt(end) == '/')) {
+                find(child, path, end + 1, depth, selected);
+            }
+        }
+
+        if (node.param != null) {
+            int end = path.indexOf('/', pos);
+            end = end < 0 ? length : end;
+            if (isParamValue(path, pos, end)) {
+                selected.captures[depth * 2] = pos;
+                selected.captures[depth * 2 + 1] = end;
+                find(node.param, path, end + 1, depth + 1, selected);
+            }
+        }
+    }
+
+    //the same routes, in the same order, as a ByPathRegex filled in before the matcher was picked
+    public static ByPathRadix compile(ByPathRegex routes) {
+        ByPathRadix radix = new ByPathRadix();
+        routes.middlewares.forEach((path, handlers) -> radix.store(null, path, handlers));
+        routes.all.forEach(radix::storeBefore);
+        return radix;
+    }
+
+    @Override
+    public void store(String path, IMiddleware... handlers) {
+        storeBefore(path.replace("*", ".*"), handlers);
+    }
+
+    void storeBefore(String key, IMiddleware[] handlers) {
+        if (all.get(key) != null) {
+            IMiddleware[] newArray = new IMiddleware[all.get(key).length + handlers.length];
+            System.arraycopy(all.get(key), 0, newArray, 0, all.get(key).length);
+            System.arraycopy(handlers, 0, newArray, all.get(key).length, handlers.length);
+            all.put(key, newArray);
+        } else {
+            all.put(key, handlers);
+        }
+
+        //recompile the "before" patterns once here, and merge them into each route's chain, rather than on each lookup
+        Pattern[] patterns = new Pattern[all.size()];
+        IMiddleware[][] chains = new IMiddleware[all.size()][];
+        int i = 0;
+        for (Map.Entry<String, IMiddleware[]> entry : all.entrySet()) {
+            patterns[i] = Pattern.compile(entry.getKey());
+            chains[i++] = entry.getValue();
+        }
+        this.befores = patterns;
+        this.beforeHandlers = chains;
+        for (Route route : routes) {
+            route.chain = BeforeChain.resolve(PathUtils.pathToRegex(route.path), route.handlers, patterns, chains);
+        }
+    }
+
+    @Override
+    public boolean canRoute() {
+        return !this.paths.isEmpty();
+    }
+
+    private static Route[] append(Route[] routes, Route route) {
+        Route[] newArray = Arrays.copyOf(routes, routes.length + 1);
+        newArray[routes.length] = route;
+        return newArray;
+    }
+
+    static class Node {
+
+        String label;
+        Node[] statics = new Node[0];
+        Node param;
+        Route terminal;
+        Route[] regex = new Route[0];
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node insert(String label) {
+            for (int i = 0; i < statics.length; i++) {
+                Node child = statics[i];
+                int common = commonSegments(child.label, label);
+                if (common < 0) {
+                    continue;
+                }
+                if (common < child.label.length()) {
+                    //split the existing edge where the two labels diverge
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common + 1);
+                    split.statics = new Node[]{child};
+                    statics[i] = split;
+                    child = split;
+                }
+                return common == label.length() ? child : child.insert(label.substring(common + 1));
+            }
+
+            Node node = new Node(label);
+            Node[] newArray = Arrays.copyOf(statics, statics.length + 1);
+            newArray[statics.length] = node;
+            this.statics = newArray;
+            return node;
+        }
+    }
+
+    static class Route {
+
+        final String path;
+        final int order;
+        final IMiddleware[] handlers;
+        String[] paramNames = new String[0];
+        Pattern pattern;
+        BeforeChain chain;
+
+        Route(String path, int order, IMiddleware[] handlers) {
+            this.path = path;
+            this.order = order;
+            this.handlers = handlers;
+        }
+
+        Route params(List<String> names) {
+            this.paramNames = PathUtils.dropRepeatedNames(names.toArray(String[]::new));
+            return this;
+        }
+
+        Route regex() {
+            this.pattern = Pattern.compile(PathUtils.pathToRegex(path));
+            this.paramNames = PathUtils.extractPathParamNames(path, pattern);
+            return this;
+        }
+    }
+
+    static class Selected {
+
+        final int[] captures;
+        Route route;
+        int[] values;
+        Matcher matcher;
+
+        Selected(int[] captures) {
+            this.captures = captures;
+        }
+
+        int order() {
+            return route != null ? route.order : Integer.MAX_VALUE;
+        }
+
+        void offer(Route candidate, int depth, Matcher matcher) {
+            //routes registered first take precedence, the same as with ByPathRegex
+            if (candidate != null && candidate.order < order()) {
+                this.route = candidate;
+                this.values = Arrays.copyOf(captures, depth * 2);
+                this.matcher = matcher;
+            }
+        }
+
+        Map<String, String> params(String path) {
+            if (route.paramNames.length == 0) {
+                return Collections.emptyMap();
+            }
+            return matcher != null
+                    ? new PathParams(route.paramNames, matcher)
+                    : new PathParams(route.paramNames, path, values);
+        }
+    }
+}
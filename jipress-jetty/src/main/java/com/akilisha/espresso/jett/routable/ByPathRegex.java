@@ -4,24 +4,25 @@ import com.akilisha.espresso.api.middleware.IMiddleware;
 import com.akilisha.espresso.api.request.ReqMethod;
 import com.akilisha.espresso.api.routeable.IMatched;
 import com.akilisha.espresso.api.routeable.IRoutable;
-import com.akilisha.espresso.jett.application.PathUtils;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.regex.Pattern;
 
 public class ByPathRegex implements IRoutable {
 
-    Map<String, IMiddleware[]> middlewares = new LinkedHashMap<>();
-    Map<String, IMiddleware[]> all = new LinkedHashMap<>();
+    final Map<String, IMiddleware[]> middlewares = new LinkedHashMap<>();
+    final Map<String, IMiddleware[]> all = new LinkedHashMap<>();
+    //the patterns, params and merged chains that a lookup reads are swapped in together with a single volatile write,
+    //so that a select running alongside a store never pairs the patterns of one with the chains of the other
+    volatile CompiledRoutes compiled = CompiledRoutes.EMPTY;
 
     @Override
-    public void store(ReqMethod method, String path, IMiddleware[] handlers) {
+    public synchronized void store(ReqMethod method, String path, IMiddleware[] handlers) {
         boolean contains = middlewares.keySet().stream()
                 .anyMatch(key -> key.equals(path));
         if (!contains) {
             middlewares.put(path, handlers);
+            this.compiled = this.compiled.withRoute(path, handlers);
         } else {
             throw new RuntimeException("This pattern is already matched");
         }
@@ -29,36 +30,11 @@ public class ByPathRegex implements IRoutable {
 
     @Override
     public IMatched select(ReqMethod method, String path) {
-        IMatched matchedInfo = new MatchedInfo();
-
-        for (Map.Entry<String, IMiddleware[]> entry : middlewares.entrySet()) {
-            String pathRegex = PathUtils.pathToRegex(entry.getKey());
-            if (Pattern.matches(pathRegex, path)) {
-                matchedInfo.setParams(PathUtils.extractPathVariables(entry.getKey(), path));
-                matchedInfo.setHandlers(entry.getValue());
-                break;
-            }
-        }
-
-        if (matchedInfo.getHandlers() != null) {
-            IMiddleware[] handlers = matchedInfo.getHandlers();
-            Optional<IMiddleware[]> before = all.entrySet().stream()
-                    .filter(entry -> Pattern.matches(entry.getKey(), path))
-                    .map(Map.Entry::getValue)
-                    .findFirst();
-
-            if (before.isPresent()) {
-                IMiddleware[] merged = new IMiddleware[handlers.length + before.get().length];
-                System.arraycopy(before.get(), 0, merged, 0, before.get().length); //put "before" first
-                System.arraycopy(handlers, 0, merged, before.get().length, handlers.length);
-                matchedInfo.setHandlers(merged);
-            }
-        }
-        return matchedInfo;
+        return this.compiled.select(method, path);
     }
 
     @Override
-    public void store(String path, IMiddleware... handlers) {
+    public synchronized void store(String path, IMiddleware... handlers) {
         String key = path.replace("*", ".*");
         if (all.get(key) != null) {
             IMiddleware[] newArray = new IMiddleware[all.get(key).length + handlers.length];
@@ -68,6 +44,8 @@ public class ByPathRegex implements IRoutable {
         } else {
             all.put(key, handlers);
         }
+        //the merged chains built with the old "before" patterns are dropped along with them
+        this.compiled = this.compiled.withBefores(all);
     }
 
     @Override
@@ -0,0 +1,104 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import com.akilisha.espresso.api.routeable.IRoutable;
+import com.akilisha.espresso.jett.application.PathUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CompiledRoutes implements IRoutable {
+
+    static final CompiledRoutes EMPTY = new CompiledRoutes(new Pattern[0], new String[0][], new IMiddleware[0][],
+            new BeforeChain[0], new Pattern[0], new IMiddleware[0][]);
+
+    final Pattern[] patterns;
+    final String[][] paramNames;
+    final IMiddleware[][] handlers;
+    final BeforeChain[] chains;
+    final Pattern[] befores;
+    final IMiddleware[][] beforeHandlers;
+
+    private CompiledRoutes(Pattern[] patterns, String[][] paramNames, IMiddleware[][] handlers, BeforeChain[] chains,
+                           Pattern[] befores, IMiddleware[][] beforeHandlers) {
+        this.patterns = patterns;
+        this.paramNames = paramNames;
+        this.handlers = handlers;
+        this.chains = chains;
+        this.befores = befores;
+        this.beforeHandlers = beforeHandlers;
+    }
+
+    public static CompiledRoutes compile(ByPathRegex routes) {
+        //ByPathRegex keeps an up-to-date compiled copy of its routes as they are stored, and it is immutable
+        return routes.compiled;
+    }
+
+    // a copy with one more route, which compiles only the new route's pattern and chain
+    CompiledRoutes withRoute(String path, IMiddleware[] routeHandlers) {
+        int size = patterns.length;
+        String regex = PathUtils.pathToRegex(path);
+        Pattern[] newPatterns = Arrays.copyOf(patterns, size + 1);
+        String[][] newParamNames = Arrays.copyOf(paramNames, size + 1);
+        IMiddleware[][] newHandlers = Arrays.copyOf(handlers, size + 1);
+        BeforeChain[] newChains = Arrays.copyOf(chains, size + 1);
+        newPatterns[size] = Pattern.compile(regex);
+        newParamNames[size] = PathUtils.extractPathParamNames(path, newPatterns[size]);
+        newHandlers[size] = routeHandlers;
+        // the "before" chains are merged here, and for most routes it is already known which one applies
+        newChains[size] = BeforeChain.resolve(regex, routeHandlers, befores, beforeHandlers);
+        return new CompiledRoutes(newPatterns, newParamNames, newHandlers, newChains, befores, beforeHandlers);
+    }
+
+    // a copy with new "before" patterns, which keeps the compiled route patterns and merges the chains again
+    CompiledRoutes withBefores(Map<String, IMiddleware[]> all) {
+        Pattern[] newBefores = new Pattern[all.size()];
+        IMiddleware[][] newBeforeHandlers = new IMiddleware[all.size()][];
+        int i = 0;
+        for (Map.Entry<String, IMiddleware[]> entry : all.entrySet()) {
+            newBefores[i] = Pattern.compile(entry.getKey());
+            newBeforeHandlers[i++] = entry.getValue();
+        }
+        BeforeChain[] newChains = new BeforeChain[patterns.length];
+        for (int r = 0; r < patterns.length; r++) {
+            newChains[r] = BeforeChain.resolve(patterns[r].pattern(), handlers[r], newBefores, newBeforeHandlers);
+        }
+        return new CompiledRoutes(patterns, paramNames, handlers, newChains, newBefores, newBeforeHandlers);
+    }
+
+    @Override
+    public void store(ReqMethod method, String path, IMiddleware... handlers) {
+        throw new IllegalStateException("Routes cannot be added after they have been compiled");
+    }
+
+    @Override
+    public IMatched select(ReqMethod method, String path) {
+        IMatched matchedInfo = new MatchedInfo();
+
+        for (int i = 0; i < patterns.length; i++) {
+            Matcher matcher = patterns[i].matcher(path);
+            if (matcher.matches()) {
+                if (paramNames[i].length > 0) {
+                    matchedInfo.setParams(new PathParams(paramNames[i], matcher));
+                }
+                matchedInfo.setHandlers(chains[i].select(path));
+                break;
+            }
+        }
+        return matchedInfo;
+    }
+
+    @Override
+    public void store(String path, IMiddleware... handlers) {
+        throw new IllegalStateException("Routes cannot be added after they have been compiled");
+    }
+
+    @Override
+    public boolean canRoute() {
+        return this.patterns.length > 0;
+    }
+}
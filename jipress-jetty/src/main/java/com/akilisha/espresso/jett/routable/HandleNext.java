@@ -30,4 +30,10 @@ public class HandleNext implements INext {
     public void setHandled(boolean handled) {
         this.handled = handled;
     }
+
+    public void recycle() {
+        this.error = null;
+        this.errorCode = null;
+        this.handled = Boolean.FALSE;
+    }
 }
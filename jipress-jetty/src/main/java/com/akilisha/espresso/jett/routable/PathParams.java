@@ -0,0 +1,112 @@
+package com.akilisha.espresso.jett.routable;
+
+import java.util.*;
+import java.util.regex.Matcher;
+
+public class PathParams extends AbstractMap<String, String> {
+
+    //a null name is a capture shadowed by a later one with the same name, which is left out of the map
+    final String[] names;
+    final Matcher matcher;
+    final String path;
+    final int[] bounds;
+    final String[] values;
+
+    public PathParams(String[] names, Matcher matcher) {
+        this(names, matcher, null, null);
+    }
+
+    public PathParams(String[] names, String path, int[] bounds) {
+        this(names, null, path, bounds);
+    }
+
+    private PathParams(String[] names, Matcher matcher, String path, int[] bounds) {
+        this.names = names;
+        this.matcher = matcher;
+        this.path = path;
+        this.bounds = bounds;
+        this.values = new String[names.length];
+    }
+
+    private String value(int index) {
+        // the substring for a param is only created the first time that the param is read
+        if (values[index] == null) {
+            values[index] = matcher != null
+                    ? matcher.group(index + 1)
+                    : path.substring(bounds[index * 2], bounds[index * 2 + 1]);
+        }
+        return values[index];
+    }
+
+    private int indexOf(Object name) {
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (names[i] != null && names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String get(Object name) {
+        int index = indexOf(name);
+        return index > -1 ? value(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return indexOf(name) > -1;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (String name : names) {
+            if (name != null) {
+                size += 1;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+
+                    int next = skip(0);
+
+                    private int skip(int index) {
+                        while (index < names.length && names[index] == null) {
+                            index += 1;
+                        }
+                        return index;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next;
+                        next = skip(next + 1);
+                        return new SimpleImmutableEntry<>(names[index], value(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PathParams.this.size();
+            }
+        };
+    }
+}
@@ -8,24 +8,35 @@ import com.akilisha.espresso.api.routeable.IRoutable;
 public class Routable implements IRoutable {
 
     final IRoutable routes = new ByMethod();
+    volatile IRoutable compiled;
+
+    public void compile(String matcher) {
+        //routes never change once the server starts, so dispatch from an immutable, precompiled table from here on
+        this.compiled = RouteTable.compile((ByMethod) this.routes, matcher);
+    }
+
+    private IRoutable routes() {
+        IRoutable compiled = this.compiled;
+        return compiled != null ? compiled : this.routes;
+    }
 
     @Override
     public void store(ReqMethod method, String path, IMiddleware... handlers) {
-        this.routes.store(method, path, handlers);
+        routes().store(method, path, handlers);
     }
 
     @Override
     public IMatched select(ReqMethod method, String path) {
-        return this.routes.select(method, path);
+        return routes().select(method, path);
     }
 
     @Override
     public void store(String path, IMiddleware... handlers) {
-        this.routes.store(path, handlers);
+        routes().store(path, handlers);
     }
 
     @Override
     public boolean canRoute() {
-        return this.routes.canRoute();
+        return routes().canRoute();
     }
 }
@@ -0,0 +1,57 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import com.akilisha.espresso.api.routeable.IRoutable;
+
+import java.util.Map;
+
+public class RouteTable implements IRoutable {
+
+    final IRoutable[] methodRoutes;
+    final boolean canRoute;
+
+    private RouteTable(IRoutable[] methodRoutes, boolean canRoute) {
+        this.methodRoutes = methodRoutes;
+        this.canRoute = canRoute;
+    }
+
+    public static RouteTable compile(ByMethod routes, String matcher) {
+        boolean radix = ByMethod.RADIX_MATCHER.equalsIgnoreCase(matcher);
+        IRoutable[] methodRoutes = new IRoutable[ReqMethod.values().length];
+        for (Map.Entry<ReqMethod, IRoutable> entry : routes.methodRoutes.entrySet()) {
+            IRoutable pathRoutes = entry.getValue();
+            if (pathRoutes instanceof ByPathRegex byPathRegex) {
+                pathRoutes = radix ? ByPathRadix.compile(byPathRegex) : CompiledRoutes.compile(byPathRegex);
+            }
+            methodRoutes[entry.getKey().ordinal()] = pathRoutes; // a radix matcher passed in to ByMethod is kept as is
+        }
+        return new RouteTable(methodRoutes, routes.canRoute());
+    }
+
+    @Override
+    public void store(ReqMethod method, String path, IMiddleware... handlers) {
+        throw new IllegalStateException("Routes cannot be added after they have been compiled");
+    }
+
+    @Override
+    public IMatched select(ReqMethod method, String path) {
+        IRoutable pathRoutes = this.methodRoutes[method.ordinal()];
+        if (pathRoutes != null) {
+            return pathRoutes.select(method, path);
+        }
+        //return matched info without any handlers
+        return new MatchedInfo();
+    }
+
+    @Override
+    public void store(String path, IMiddleware... handlers) {
+        throw new IllegalStateException("Routes cannot be added after they have been compiled");
+    }
+
+    @Override
+    public boolean canRoute() {
+        return this.canRoute;
+    }
+}
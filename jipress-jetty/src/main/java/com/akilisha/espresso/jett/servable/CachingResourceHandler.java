@@ -0,0 +1,250 @@
+package com.akilisha.espresso.jett.servable;
+
+import com.akilisha.espresso.jett.response.ETag;
+import com.akilisha.espresso.jett.servable.StaticResourceCache.CachedResource;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static com.akilisha.espresso.api.content.IContentType.APPLICATION_OCTET_STREAM;
+
+@ManagedObject("Serve static files out of an in-memory cache, with precompressed variants")
+@Slf4j
+public class CachingResourceHandler extends ResourceHandler {
+
+    public static final long DEFAULT_REVALIDATE_MILLIS = 1000;
+
+    final Path baseDirectory;
+    final StaticResourceCache cache;
+    final long maxCachedFileSize;
+    final boolean precompress;
+    final long revalidateNanos;
+    final Supplier<String> etagMode;
+    //the file loads in progress, so that requests missing on the same file at the same time all wait for one load
+    final ConcurrentHashMap<Path, CompletableFuture<CachedResource>> loading = new ConcurrentHashMap<>();
+    volatile Path realBase;
+
+    public CachingResourceHandler(Path baseDirectory, long cacheSize, long maxCachedFileSize, boolean precompress) {
+        this(baseDirectory, cacheSize, maxCachedFileSize, precompress, DEFAULT_REVALIDATE_MILLIS, () -> ETag.WEAK);
+    }
+
+    public CachingResourceHandler(Path baseDirectory, long cacheSize, long maxCachedFileSize, boolean precompress,
+                                  long revalidateMillis, Supplier<String> etagMode) {
+        this.baseDirectory = baseDirectory.toAbsolutePath().normalize();
+        this.cache = new StaticResourceCache(cacheSize);
+        this.maxCachedFileSize = maxCachedFileSize;
+        this.precompress = precompress;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMillis);
+        this.etagMode = etagMode;
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        //ranges, directories, welcome files and anything too big to cache are left to the regular resource handler
+        boolean head = HttpMethod.HEAD.is(request.getMethod());
+        if (baseRequest.isHandled() || !(head || HttpMethod.GET.is(request.getMethod())) || request.getHeader(HttpHeader.RANGE.asString()) != null) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+        CachedResource resource = lookup(target);
+        if (resource == null) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        baseRequest.setHandled(true);
+        //the encoding is picked first, since a 304 has to vary the same way as the 200 it stands in for
+        ByteBuffer content = resource.identity;
+        String encoding = null;
+        if (resource.gzip != null || resource.brotli != null) {
+            response.setHeader(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+            String acceptEncoding = request.getHeader(HttpHeader.ACCEPT_ENCODING.asString());
+            if (resource.brotli != null && accepts(acceptEncoding, "br")) {
+                content = resource.brotli;
+                encoding = "br";
+            } else if (resource.gzip != null && accepts(acceptEncoding, "gzip")) {
+                content = resource.gzip;
+                encoding = "gzip";
+            }
+        }
+        String etag = encodedEtag(resource.etag(etagMode.get()), encoding);
+        response.setContentType(resource.contentType);
+        response.setDateHeader(HttpHeader.LAST_MODIFIED.asString(), resource.lastModified);
+        if (etag != null) {
+            response.setHeader(HttpHeader.ETAG.asString(), etag);
+        }
+        if (ETag.notModified(request, etag, resource.lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (encoding != null) {
+            response.setHeader(HttpHeader.CONTENT_ENCODING.asString(), encoding);
+        }
+        response.setContentLengthLong(content.remaining());
+        if (!head) {
+            //each request gets its own view of the shared buffer, which goes out without being copied onto the heap
+            baseRequest.getResponse().getHttpOutput().sendContent(content.duplicate());
+        }
+    }
+
+    // the bytes of an encoded body differ from those of the file itself, so a strong tag names the encoding as well. A
+    // weak one stays as it is, since the content is still the same
+    static String encodedEtag(String etag, String encoding) {
+        if (etag == null || encoding == null || etag.startsWith("W/")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+    }
+
+    CachedResource lookup(String target) throws IOException {
+        if (target == null || target.isEmpty() || target.endsWith("/")) {
+            return null;
+        }
+        Path file = baseDirectory.resolve(target.substring(1)).normalize();
+        if (!file.startsWith(baseDirectory)) {
+            return null;
+        }
+        //a recently checked entry is served as it is, without going back to the file system on every hit
+        CachedResource cached = cache.get(file);
+        if (cached != null && System.nanoTime() - cached.checkedAt < revalidateNanos) {
+            return cached;
+        }
+
+        //symbolic links are followed, but only as long as they lead to somewhere inside the base directory
+        Path base = realBase();
+        Path real;
+        BasicFileAttributes attributes;
+        try {
+            real = file.toRealPath();
+            attributes = Files.readAttributes(real, BasicFileAttributes.class);
+        } catch (IOException e) {
+            cache.remove(file);
+            return null;
+        }
+        if (base == null || !real.startsWith(base) || !attributes.isRegularFile() || attributes.size() > maxCachedFileSize) {
+            cache.remove(file);
+            return null;
+        }
+
+        //a file that has changed on disk since it was cached is simply loaded again
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (cached != null && !cached.isStale(lastModified, attributes.size())) {
+            cached.checkedAt = System.nanoTime();
+            return cached;
+        }
+        CompletableFuture<CachedResource> mine = new CompletableFuture<>();
+        CompletableFuture<CachedResource> theirs = loading.putIfAbsent(file, mine);
+        if (theirs != null) {
+            return await(theirs);
+        }
+        try {
+            cached = load(real, lastModified, attributes.size());
+            cache.put(file, cached);
+            mine.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(file, mine);
+        }
+    }
+
+    private Path realBase() {
+        if (realBase == null) {
+            try {
+                realBase = baseDirectory.toRealPath();
+            } catch (IOException e) {
+                return null; //not there (yet), so nothing can be served from it
+            }
+        }
+        return realBase;
+    }
+
+    // waits for another request's load of the same file. If that failed, the regular resource handler gets to try
+    private static CachedResource await(CompletableFuture<CachedResource> load) {
+        try {
+            return load.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private CachedResource load(Path file, long lastModified, long length) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        String contentType = getMimeTypes().getMimeByExtension(file.getFileName().toString());
+        if (contentType == null) {
+            contentType = APPLICATION_OCTET_STREAM;
+        }
+
+        //compressed once here, rather than on every request
+        ByteBuffer gzip = null;
+        ByteBuffer brotli = null;
+        if (precompress && compressible(contentType)) {
+            gzip = gzip(bytes);
+            Path br = file.resolveSibling(file.getFileName() + ".br");
+            if (Files.isRegularFile(br) && Files.getLastModifiedTime(br).toMillis() >= lastModified) {
+                brotli = direct(Files.readAllBytes(br));
+            }
+        }
+        log.debug("Caching {} ({} bytes)", file, bytes.length);
+        return new CachedResource(contentType, lastModified, length, direct(bytes), gzip, brotli);
+    }
+
+    private static boolean compressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("json") || contentType.contains("javascript")
+                || contentType.contains("xml") || contentType.contains("svg");
+    }
+
+    private static ByteBuffer gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.size() < bytes.length ? direct(compressed.toByteArray()) : null;
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+    }
+
+    private static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            if (params[0].trim().equalsIgnoreCase(coding)) {
+                for (int i = 1; i < params.length; i++) {
+                    if (params[i].trim().matches("q=0(\\.0*)?")) {
+                        return false; //explicitly refused
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
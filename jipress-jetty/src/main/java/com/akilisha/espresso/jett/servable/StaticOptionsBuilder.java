@@ -2,15 +2,19 @@ package com.akilisha.espresso.jett.servable;
 
 import com.akilisha.espresso.api.servable.IStaticOptions;
 import com.akilisha.espresso.api.servable.IStaticOptionsBuilder;
+import com.akilisha.espresso.jett.response.ETag;
 import org.eclipse.jetty.server.handler.ResourceHandler;
 import org.eclipse.jetty.util.resource.Resource;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class StaticOptionsBuilder {
 
     IStaticOptions staticOptions;
+    Supplier<String> etagMode = () -> ETag.WEAK;
 
     private StaticOptionsBuilder() {
         //hide constructor
@@ -29,9 +33,20 @@ public class StaticOptionsBuilder {
         return this.options(builder.apply(IStaticOptionsBuilder.newBuilder()));
     }
 
+    // where cached files get the kind of etag to send from, which is usually the app's 'etag' setting
+    public StaticOptionsBuilder etagMode(Supplier<String> etagMode) {
+        this.etagMode = etagMode;
+        return this;
+    }
+
     public ResourceHandler build() {
         try {
-            ResourceHandler handler = new ResourceHandler();
+            // Keep hot files in memory when a cache size is given.
+            ResourceHandler handler = this.staticOptions.cacheSize() > 0
+                    ? new CachingResourceHandler(Path.of(this.staticOptions.baseDirectory()), this.staticOptions.cacheSize(),
+                    this.staticOptions.maxCachedFileSize(), this.staticOptions.precompress(),
+                    CachingResourceHandler.DEFAULT_REVALIDATE_MILLIS, this.etagMode)
+                    : new ResourceHandler();
             // Configure resources base directory
             handler.setBaseResource(Resource.newResource(this.staticOptions.baseDirectory()));
             // Configure directory listing.
@@ -0,0 +1,93 @@
+package com.akilisha.espresso.jett.servable;
+
+import com.akilisha.espresso.jett.response.ETag;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StaticResourceCache {
+
+    final long maxSize;
+    final Map<Path, CachedResource> entries = new LinkedHashMap<>(64, 0.75f, true); //in access order, for LRU eviction
+    long size;
+
+    public StaticResourceCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public synchronized CachedResource get(Path path) {
+        return entries.get(path);
+    }
+
+    public synchronized void put(Path path, CachedResource resource) {
+        CachedResource previous = entries.put(path, resource);
+        if (previous != null) {
+            size -= previous.weight();
+        }
+        size += resource.weight();
+
+        //evict the least recently used entries until everything fits again
+        Iterator<CachedResource> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            CachedResource eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.weight();
+        }
+    }
+
+    public synchronized void remove(Path path) {
+        CachedResource previous = entries.remove(path);
+        if (previous != null) {
+            size -= previous.weight();
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int count() {
+        return entries.size();
+    }
+
+    public static class CachedResource {
+
+        final String contentType;
+        final long lastModified;
+        final long length;
+        final String etag;
+        final String weakEtag;
+        final ByteBuffer identity;
+        final ByteBuffer gzip; //null if it would not have been any smaller
+        final ByteBuffer brotli; //only there if a pre-built '.br' file sits next to the original
+        volatile long checkedAt; //when the file was last compared with the one on disk, in System.nanoTime()
+
+        public CachedResource(String contentType, long lastModified, long length, ByteBuffer identity, ByteBuffer gzip, ByteBuffer brotli) {
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.etag = ETag.of(length, lastModified, false);
+            this.weakEtag = ETag.of(length, lastModified, true);
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+            this.checkedAt = System.nanoTime();
+        }
+
+        // the etag to send for the given ETag.mode(), which is null when etags are turned off
+        String etag(String mode) {
+            return mode == null ? null : ETag.WEAK.equals(mode) ? weakEtag : etag;
+        }
+
+        long weight() {
+            return identity.capacity() + (gzip != null ? gzip.capacity() : 0) + (brotli != null ? brotli.capacity() : 0);
+        }
+
+        boolean isStale(long lastModified, long length) {
+            return this.lastModified != lastModified || this.length != length;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.akilisha.espresso.jett.view;
+
+import com.akilisha.espresso.api.view.IViewEngine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+public class TemplatesWarmUp {
+
+    private TemplatesWarmUp() {
+        //hide constructor
+    }
+
+    // compiles every template under the template dir, spread over all the cores, so that no request has to wait for
+    // a template to be compiled. A template that fails to compile is only logged here - its request reports the error
+    public static int warmUp(IViewEngine engine, String templateDir, String fileExt) throws IOException {
+        Path root = Path.of(templateDir);
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        List<String> templates;
+        try (Stream<Path> paths = Files.walk(root)) {
+            templates = paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(fileExt))
+                    .map(path -> root.relativize(path).toString().replace('\\', '/'))
+                    .collect(Collectors.toList());
+        }
+
+        AtomicInteger compiled = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.submit(() -> templates.parallelStream().forEach(template -> {
+                try {
+                    engine.precompile(template);
+                    compiled.incrementAndGet();
+                } catch (Exception e) {
+                    log.warn("Could not precompile the template {} under {}", template, templateDir, e);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        log.info("Precompiled {} of {} {} templates under {}", compiled.get(), templates.size(), engine.name(), templateDir);
+        return compiled.get();
+    }
+}
@@ -5,6 +5,7 @@ import com.akilisha.espresso.api.plugin.IViewEnginePlugin;
 import com.akilisha.espresso.api.view.IViewEngine;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 import java.util.ServiceLoader;
 
@@ -42,6 +43,11 @@ public class ViewEnginePlugins implements IViewEnginePlugin {
         return this.id();
     }
 
+    @Override
+    public void init(Map<String, Object> params) {
+        find(viewEngine).init(params);
+    }
+
     @Override
     public void templateDir(String dirName) {
         find(viewEngine).templateDir(dirName);
@@ -66,4 +72,14 @@ public class ViewEnginePlugins implements IViewEnginePlugin {
     public String render(AppSettings settings, String template, Map<String, Object> model) throws IOException {
         return find(viewEngine).render(settings, template, model);
     }
+
+    @Override
+    public void render(AppSettings settings, String template, Map<String, Object> model, Writer writer) throws IOException {
+        find(viewEngine).render(settings, template, model, writer);
+    }
+
+    @Override
+    public void precompile(String fileName) throws IOException {
+        find(viewEngine).precompile(fileName);
+    }
 }
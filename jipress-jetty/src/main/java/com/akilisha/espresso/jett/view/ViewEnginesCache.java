@@ -4,30 +4,98 @@ import com.akilisha.espresso.api.view.IViewEngine;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ViewEnginesCache {
 
-    private static final Map<String, IViewEngine> engines = new LinkedHashMap<>();
+    // read on every render, but only written when engines are (re)loaded. Writers swap in an updated copy, so that
+    // readers never take a lock and always see a complete map
+    private static volatile Map<String, IViewEngine> engines = Map.of();
+    private static final Map<EngineKey, IViewEngine> instances = new ConcurrentHashMap<>();
+    // the init params given for an engine name, which every instance of it is created with, whatever its dir
+    private static volatile Map<String, Map<String, Object>> params = Map.of();
 
     private ViewEnginesCache() {
         //hide constructor
     }
 
     public static IViewEngine engine(String name, String templateDir) {
-        if (engines.containsKey(name)) {
-            IViewEngine viewEngine = engines.get(name);
+        IViewEngine registered = name != null ? engines.get(name) : null;
+        if (registered != null) {
+            // each template dir gets an engine of its own, so that apps rendering from different dirs never share (or
+            // keep resetting) the dir and the compiled templates that go with it
+            EngineKey key = new EngineKey(name, templateDir);
+            IViewEngine instance = instances.get(key);
+            if (instance != null && instance.getClass() == registered.getClass()) {
+                return instance;
+            }
+            // either the first render from this dir, or the engine has been swapped since
+            return instances.compute(key, (k, current) -> current != null && current.getClass() == registered.getClass()
+                    ? current
+                    : newInstance(registered, templateDir));
+        }
+
+        throw new NullPointerException(String.format("There is no template engine configured for the name %s", name));
+    }
+
+    private static IViewEngine newInstance(IViewEngine registered, String templateDir) {
+        try {
+            IViewEngine viewEngine = registered.getClass().getDeclaredConstructor().newInstance();
+            Map<String, Object> initParams = params.get(registered.name());
+            if (initParams != null) {
+                viewEngine.init(initParams);
+            }
             viewEngine.templateDir(templateDir);
             return viewEngine;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("Could not create a %s engine for the template dir %s",
+                    registered.name(), templateDir), e);
         }
+    }
 
-        throw new NullPointerException(String.format("There is no template engine configured for the name %s", name));
+    // tunes the engine for a name, along with every instance of it handed out so far. The params add to any given before
+    public static synchronized void init(String name, Map<String, Object> initParams) {
+        Map<String, Object> merged = new LinkedHashMap<>(params.getOrDefault(name, Map.of()));
+        merged.putAll(initParams);
+        Map<String, Map<String, Object>> updated = new LinkedHashMap<>(params);
+        updated.put(name, Map.copyOf(merged));
+        params = Map.copyOf(updated);
+        instances.forEach((key, instance) -> {
+            if (key.name().equals(name)) {
+                instance.init(initParams);
+            }
+        });
+    }
+
+    public static synchronized void register(String name, IViewEngine viewEngine) {
+        if (!engines.containsKey(name)) {
+            Map<String, IViewEngine> updated = new LinkedHashMap<>(engines);
+            updated.put(name, viewEngine);
+            engines = Map.copyOf(updated);
+        }
+    }
+
+    // swaps the engine for a name while the server is running. Renders already holding the old one finish with it, and
+    // later ones get a new instance (with fresh template caches) for their dir
+    public static synchronized void replace(String name, IViewEngine viewEngine) {
+        Map<String, IViewEngine> updated = new LinkedHashMap<>(engines);
+        updated.put(name, viewEngine);
+        engines = Map.copyOf(updated);
+        instances.keySet().removeIf(key -> key.name().equals(name));
+    }
+
+    // swaps in a whole new set of engines at once, so there is no moment when none are registered
+    public static synchronized void reload(Map<String, IViewEngine> loaded) {
+        engines = Map.copyOf(loaded);
+        instances.clear();
     }
 
-    public static void register(String name, IViewEngine viewEngine) {
-        engines.putIfAbsent(name, viewEngine);
+    public static synchronized void deregister() {
+        engines = Map.of();
+        instances.clear();
+        params = Map.of();
     }
 
-    public static void deregister() {
-        engines.clear();
+    record EngineKey(String name, String templateDir) {
     }
 }
@@ -0,0 +1,80 @@
+package com.akilisha.espresso.jett;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EspressoTest {
+
+    @Test
+    void startup_options_override_the_thread_pool_and_shedding_settings() {
+        AppSettings settings = new AppSettings();
+        Espresso.applyStartupLimits(settings, Map.of("maxThreads", "16", "maxQueuedJobs", " 32 ", "shedQueueDepth", "24",
+                "threadIdleTimeout", "5000")::get);
+
+        assertThat(settings.get(AppSettings.Setting.MAX_THREADS)).isEqualTo(16);
+        assertThat(settings.get(AppSettings.Setting.THREAD_IDLE_TIMEOUT)).isEqualTo(5000);
+        assertThat(settings.get(AppSettings.Setting.MAX_QUEUED_JOBS)).isEqualTo(32);
+        assertThat(settings.get(AppSettings.Setting.SHED_QUEUE_DEPTH)).isEqualTo(24);
+        assertThat(settings.get(AppSettings.Setting.MIN_THREADS)).isEqualTo(8);
+        assertThat(settings.get(AppSettings.Setting.SHED_RETRY_AFTER)).isEqualTo(1);
+    }
+
+    @Test
+    void the_thread_pool_rejects_jobs_once_its_queue_is_full() throws Exception {
+        AppSettings settings = new AppSettings();
+        settings.put(AppSettings.Setting.MIN_THREADS, 4);
+        settings.put(AppSettings.Setting.MAX_THREADS, 4);
+        settings.put(AppSettings.Setting.MAX_QUEUED_JOBS, 3);
+        QueuedThreadPool threadPool = Espresso.createThreadPool(settings, false);
+        threadPool.setReservedThreads(0);
+        threadPool.start();
+
+        Semaphore busy = new Semaphore(0);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            //occupy every thread, one at a time, so that none of these jobs is still sitting in the queue
+            for (int i = 0; i < 4; i++) {
+                threadPool.execute(() -> {
+                    busy.release();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                busy.acquire();
+            }
+            for (int i = 0; i < 3; i++) {
+                threadPool.execute(() -> {
+                });
+            }
+            assertThat(threadPool.getQueueSize()).isEqualTo(3);
+            assertThatThrownBy(() -> threadPool.execute(() -> {
+            })).isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+            threadPool.stop();
+        }
+    }
+
+    @Test
+    void queue_depth_shedding_is_refused_with_virtual_threads() {
+        AppSettings settings = new AppSettings();
+        settings.put(AppSettings.Setting.SHED_QUEUE_WAIT, 500);
+        assertThat(Espresso.createThreadPool(settings, true)).isNotNull(); // shedding by wait time works either way
+
+        settings.put(AppSettings.Setting.SHED_QUEUE_DEPTH, 100);
+        assertThat(Espresso.createThreadPool(settings, false)).isNotNull();
+        assertThatThrownBy(() -> Espresso.createThreadPool(settings, true))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("shedQueueWait");
+    }
+}
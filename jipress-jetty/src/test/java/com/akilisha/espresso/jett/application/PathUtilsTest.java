@@ -57,6 +57,14 @@ class PathUtilsTest {
                 "/flights/:airport/:depart-:arrive/:gate");
     }
 
+    @Test
+    void joinPaths() {
+        assertThat(PathUtils.joinPaths("", "/about")).isEqualTo("/about");
+        assertThat(PathUtils.joinPaths("/birds", "/about")).isEqualTo("/birds/about");
+        assertThat(PathUtils.joinPaths("/birds/", "//about")).isEqualTo("/birds/about");
+        assertThat(PathUtils.joinPaths("/birds", "")).isEqualTo("/birds/");
+    }
+
     @Test
     void extractPathVariables() {
         Map<String, String> params1 = PathUtils.extractPathVariables(
@@ -0,0 +1,38 @@
+package com.akilisha.espresso.jett.application;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryParamsTest {
+
+    @Test
+    void keepsRepeatedKeysInOrder() {
+        Map<String, List<String>> query = new QueryParams("math=20&history=30&math=40");
+        assertThat(query.get("math")).containsExactly("20", "40");
+        assertThat(query.get("history")).containsExactly("30");
+        assertThat(query.get("science")).isNull();
+        assertThat(query.keySet()).containsExactly("math", "history");
+    }
+
+    @Test
+    void decodesKeysAndValues() {
+        Map<String, List<String>> query = new QueryParams("first+name=jimmy+jones&city%20name=S%C3%A3o%20Paulo&rate=100%25");
+        assertThat(query.get("first name")).containsExactly("jimmy jones");
+        assertThat(query.get("city name")).containsExactly("São Paulo");
+        assertThat(query.get("rate")).containsExactly("100%");
+    }
+
+    @Test
+    void toleratesMissingValuesAndEmptyPairs() {
+        Map<String, List<String>> query = new QueryParams("flag&&empty=&=orphan&bad=%zz");
+        assertThat(query).hasSize(3);
+        assertThat(query.get("flag")).containsExactly("");
+        assertThat(query.get("empty")).containsExactly("");
+        assertThat(query.get("bad")).containsExactly("%zz");
+        assertThat(new QueryParams(null)).isEmpty();
+    }
+}
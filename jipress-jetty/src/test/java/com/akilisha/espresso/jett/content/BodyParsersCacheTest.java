@@ -0,0 +1,78 @@
+package com.akilisha.espresso.jett.content;
+
+import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.request.IRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BodyParsersCacheTest {
+
+    final IBodyParser json = new TestParser("application/json");
+    final IBodyParser text = new TestParser("text/*");
+
+    @BeforeEach
+    void register() {
+        BodyParsersCache.register("application/json", json);
+        BodyParsersCache.register("text/*", text);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BodyParsersCache.deregister();
+    }
+
+    @Test
+    void looksUpATypeByItsTypeAndSubtypeAlone() {
+        assertThat(BodyParsersCache.parser("application/json")).isSameAs(json);
+        assertThat(BodyParsersCache.parser("application/json; charset=utf-8")).isSameAs(json);
+        assertThat(BodyParsersCache.parser("Application/JSON;charset=UTF-8")).isSameAs(json);
+    }
+
+    @Test
+    void fallsBackOnTheSuffixOfAStructuredType() {
+        assertThat(BodyParsersCache.parser("application/vnd.api+json")).isSameAs(json);
+        assertThat(BodyParsersCache.parser("application/problem+json; charset=utf-8")).isSameAs(json);
+    }
+
+    @Test
+    void fallsBackOnAParserForTheWholeType() {
+        assertThat(BodyParsersCache.parser("text/plain")).isSameAs(text);
+        assertThat(BodyParsersCache.parser("text/csv; header=present")).isSameAs(text);
+    }
+
+    @Test
+    void hasNoParserForAnUnknownOrMissingType() {
+        assertThat(BodyParsersCache.parser("image/png")).isNull();
+        assertThat(BodyParsersCache.parser("application/vnd.api+xml")).isNull();
+        assertThat(BodyParsersCache.parser("")).isNull();
+        assertThat(BodyParsersCache.parser((String) null)).isNull();
+    }
+
+    static class TestParser implements IBodyParser {
+
+        final String contentType;
+
+        TestParser(String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void init(Map<String, Object> params) {
+        }
+
+        @Override
+        public String contentType() {
+            return this.contentType;
+        }
+
+        @Override
+        public Object read(IRequest request) {
+            return null;
+        }
+    }
+}
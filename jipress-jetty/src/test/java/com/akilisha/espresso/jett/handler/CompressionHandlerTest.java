@@ -0,0 +1,116 @@
+package com.akilisha.espresso.jett.handler;
+
+import com.akilisha.espresso.api.application.CompressionOptionsBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionHandlerTest {
+
+    static final String BODY = "a line of the response body\n".repeat(200);
+
+    final CompressionHandler handler = new CompressionHandler(CompressionOptionsBuilder.newBuilder().build());
+    Server server;
+    LocalConnector connector;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+        // the path picks the status, the type and the size of what is sent back
+        handler.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                response.setStatus(target.equals("/not-modified") ? 304 : target.equals("/no-content") ? 204 : 200);
+                response.setContentType(target.equals("/image") ? "image/png" : "text/plain");
+                response.setHeader("ETag", "\"v1\"");
+                if (target.equals("/not-modified") || target.equals("/no-content")) {
+                    return;
+                }
+                byte[] body = (target.equals("/small") ? "tiny" : BODY).getBytes(StandardCharsets.UTF_8);
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+        });
+        server.setHandler(handler);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        server.stop();
+    }
+
+    HttpTester.Response request(String method, String path, String acceptEncoding) throws Exception {
+        String accept = acceptEncoding != null ? "Accept-Encoding: " + acceptEncoding + "\r\n" : "";
+        return HttpTester.parseResponse(connector.getResponse(String.format(
+                "%s %s HTTP/1.1\r\nHost: localhost\r\n%sConnection: close\r\n\r\n", method, path, accept), 5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void negotiates_by_weight_then_by_the_order_of_the_options() {
+        assertThat(handler.negotiate(null)).isNull();
+        assertThat(handler.negotiate("deflate, gzip")).isEqualTo("gzip");
+        assertThat(handler.negotiate("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(handler.negotiate("gzip;q=0, deflate;q=0.1")).isEqualTo("deflate");
+        assertThat(handler.negotiate("gzip;q=0.0, deflate;q=0")).isNull();
+        assertThat(handler.negotiate("br")).isNull();
+        assertThat(handler.negotiate("*")).isEqualTo("gzip");
+        assertThat(handler.negotiate("gzip;q=0, *")).isEqualTo("deflate");
+        assertThat(handler.negotiate("*;q=0")).isNull();
+    }
+
+    @Test
+    void compresses_with_the_negotiated_encoding_and_weakens_the_etag() throws Exception {
+        HttpTester.Response gzip = request("GET", "/text", "gzip");
+        assertThat(gzip.get("Content-Encoding")).isEqualTo("gzip");
+        assertThat(gzip.get("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(gzip.get("ETag")).isEqualTo("W/\"v1\"");
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getContentBytes())).readAllBytes())
+                .isEqualTo(BODY.getBytes(StandardCharsets.UTF_8));
+
+        HttpTester.Response deflate = request("GET", "/text", "gzip;q=0.2, deflate");
+        assertThat(deflate.get("Content-Encoding")).isEqualTo("deflate");
+        assertThat(new InflaterInputStream(new ByteArrayInputStream(deflate.getContentBytes())).readAllBytes())
+                .isEqualTo(BODY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void leaves_compressible_responses_it_does_not_compress_varying_on_the_header() throws Exception {
+        for (HttpTester.Response response : new HttpTester.Response[]{
+                request("GET", "/text", null), request("GET", "/text", "br"), request("GET", "/small", "gzip"),
+                request("HEAD", "/text", "gzip")}) {
+            assertThat(response.get("Content-Encoding")).isNull();
+            assertThat(response.get("Vary")).isEqualTo("Accept-Encoding");
+            assertThat(response.get("ETag")).isEqualTo("\"v1\"");
+        }
+        assertThat(request("GET", "/text", null).getContent()).isEqualTo(BODY);
+    }
+
+    @Test
+    void skips_responses_that_have_no_body_or_are_not_compressible() throws Exception {
+        for (String path : new String[]{"/image", "/not-modified", "/no-content"}) {
+            HttpTester.Response response = request("GET", path, "gzip");
+            assertThat(response.get("Content-Encoding")).isNull();
+            assertThat(response.get("Vary")).isNull();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.akilisha.espresso.jett.handler;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadSheddingHandlerTest {
+
+    final AtomicInteger queued = new AtomicInteger();
+    final QueuedThreadPool threadPool = new QueuedThreadPool() {
+        @Override
+        public int getQueueSize() {
+            return queued.get(); // stands in for a backlog, which is hard to build up for real in a test
+        }
+    };
+    Server server;
+    LocalConnector connector;
+
+    static Handler ok() {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    void start(Handler handler) throws Exception {
+        server = new Server(threadPool);
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+        server.setHandler(handler);
+        server.start();
+    }
+
+    HttpTester.Response get() throws Exception {
+        return HttpTester.parseResponse(connector.getResponse("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    void passes_requests_through_while_the_queue_is_short() throws Exception {
+        LoadSheddingHandler shedding = new LoadSheddingHandler(threadPool, 5, 0, 7);
+        shedding.setHandler(ok());
+        start(shedding);
+
+        queued.set(4);
+        HttpTester.Response response = get();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.get(HttpHeader.RETRY_AFTER)).isNull();
+    }
+
+    @Test
+    void turns_requests_away_with_a_503_and_retry_after_once_the_queue_backs_up() throws Exception {
+        LoadSheddingHandler shedding = new LoadSheddingHandler(threadPool, 5, 0, 7);
+        shedding.setHandler(ok());
+        start(shedding);
+
+        queued.set(5);
+        HttpTester.Response response = get();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.get(HttpHeader.RETRY_AFTER)).isEqualTo("7");
+
+        queued.set(0);
+        assertThat(get().getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void turns_requests_away_that_waited_too_long_for_a_thread() throws Exception {
+        LoadSheddingHandler shedding = new LoadSheddingHandler(threadPool, 0, 50, 2);
+        shedding.setHandler(ok());
+        HandlerWrapper slow = new HandlerWrapper() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws java.io.IOException, jakarta.servlet.ServletException {
+                try {
+                    Thread.sleep(100); // as if the request had sat in the queue
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.handle(target, baseRequest, request, response);
+            }
+        };
+        slow.setHandler(shedding);
+        start(slow);
+
+        HttpTester.Response response = get();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.get(HttpHeader.RETRY_AFTER)).isEqualTo("2");
+    }
+}
@@ -0,0 +1,105 @@
+package com.akilisha.espresso.jett.handler;
+
+import com.akilisha.espresso.api.middleware.INext;
+import com.akilisha.espresso.api.request.IRequest;
+import com.akilisha.espresso.api.response.IResponse;
+import com.akilisha.espresso.jett.application.QueryParams;
+import org.eclipse.jetty.server.Request;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestPoolTest {
+
+    static RequestPool.Scope start(RequestPool pool, String id) {
+        RequestPool.Scope scope = pool.acquire();
+        scope.req.init(null, new Request(null, null), Map.of("id", id), new QueryParams(null));
+        scope.res.init(null, new Request(null, null), null);
+        return scope;
+    }
+
+    @Test
+    void pooling_off_hands_out_new_objects_for_every_request() {
+        RequestPool pool = new RequestPool(false);
+        RequestPool.Scope first = start(pool, "1");
+        pool.release(first, false);
+        RequestPool.Scope second = start(pool, "2");
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.req).isNotSameAs(first.req);
+        assertThat(first.request).isSameAs(first.req);
+        assertThat(first.request.param("id")).isEqualTo("1");
+    }
+
+    @Test
+    void pooling_on_reuses_the_objects_behind_new_views() {
+        RequestPool pool = new RequestPool(true);
+        RequestPool.Scope first = start(pool, "1");
+        IRequest firstRequest = first.request;
+        assertThat(firstRequest.param("id")).isEqualTo("1");
+        pool.release(first, false);
+        RequestPool.Scope second = start(pool, "2");
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.req).isSameAs(first.req);
+        assertThat(second.request).isNotSameAs(firstRequest);
+        assertThat(second.request.param("id")).isEqualTo("2");
+    }
+
+    @Test
+    void views_kept_past_the_end_of_their_request_fail_once_the_objects_are_reused() {
+        RequestPool pool = new RequestPool(true);
+        RequestPool.Scope first = start(pool, "1");
+        IRequest staleRequest = first.request;
+        IResponse staleResponse = first.response;
+        INext staleNext = first.handle;
+        pool.release(first, false);
+        RequestPool.Scope second = start(pool, "2");
+
+        assertThatThrownBy(() -> staleRequest.param("id")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(staleRequest::app).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(staleResponse::app).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> staleNext.error(new RuntimeException("late"))).isInstanceOf(IllegalStateException.class);
+        assertThat(second.next.hasError()).isFalse();
+        assertThat(second.request.param("id")).isEqualTo("2");
+    }
+
+    @Test
+    void recycled_objects_fail_even_before_they_are_reused() {
+        RequestPool pool = new RequestPool(false);
+        RequestPool.Scope scope = start(pool, "1");
+        scope.req.recycle();
+        scope.res.recycle();
+
+        assertThatThrownBy(scope.request::app).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> scope.response.render("index")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void requests_that_went_async_keep_their_objects() {
+        RequestPool pool = new RequestPool(true);
+        RequestPool.Scope async = start(pool, "1");
+        IRequest asyncRequest = async.request;
+        pool.release(async, true);
+        RequestPool.Scope next = start(pool, "2");
+
+        assertThat(next).isNotSameAs(async);
+        assertThat(next.req).isNotSameAs(async.req);
+        assertThat(asyncRequest.param("id")).isEqualTo("1");
+        assertThat(next.request.param("id")).isEqualTo("2");
+    }
+
+    @Test
+    void nested_dispatches_on_the_same_thread_are_not_pooled() {
+        RequestPool pool = new RequestPool(true);
+        RequestPool.Scope outer = start(pool, "1");
+        RequestPool.Scope nested = start(pool, "2");
+        pool.release(nested, false);
+
+        assertThat(nested).isNotSameAs(outer);
+        assertThat(outer.request.param("id")).isEqualTo("1");
+    }
+}
@@ -0,0 +1,197 @@
+package com.akilisha.espresso.jett.handler;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import com.akilisha.espresso.api.middleware.IAsyncMiddleware;
+import com.akilisha.espresso.api.middleware.IAsyncParamCallback;
+import com.akilisha.espresso.jett.application.Application;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteHandlerTest {
+
+    static final Executor later = CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS);
+
+    final Application app = new Application() {
+
+        final AppSettings settings = new AppSettings();
+
+        @Override
+        public AppSettings getSettings() {
+            return settings; // as the entry app has
+        }
+    };
+    final Map<String, Object> seen = new ConcurrentHashMap<>();
+    long asyncTimeout = 5_000;
+    Server server;
+    LocalConnector connector;
+
+    static <T> CompletableFuture<T> later(Supplier<T> value) {
+        return CompletableFuture.supplyAsync(value, later);
+    }
+
+    HttpTester.Response get(String path) throws Exception {
+        return send(String.format("GET %s HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n", path));
+    }
+
+    // the body may well be shorter than the length it claims, like that of a client that stalls halfway
+    HttpTester.Response post(String path, int length, String body) throws Exception {
+        return send(String.format("POST %s HTTP/1.1\r\nHost: localhost\r\nContent-Length: %d\r\nConnection: close\r\n\r\n%s", path, length, body));
+    }
+
+    HttpTester.Response send(String request) throws Exception {
+        if (server == null) {
+            server = new Server();
+            connector = new LocalConnector(server);
+            server.addConnector(connector);
+            server.setHandler(new RouteHandler(app, true, asyncTimeout));
+            server.start();
+        }
+        LocalConnector.LocalEndPoint endPoint = connector.connect();
+        endPoint.addInput(request); // and left open, for a short body to be waited on
+        return HttpTester.parseResponse(endPoint.getResponse(false, 5, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void resumes_the_chain_once_a_pending_stage_completes() throws Exception {
+        app.get("/user/:id",
+                (IAsyncMiddleware) (req, res, next) -> later(() -> seen.put("user", "user-" + req.param("id"))),
+                (req, res, next) -> res.send("hello " + seen.get("user")));
+
+        HttpTester.Response response = get("/user/7");
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContent().trim()).isEqualTo("hello user-7");
+    }
+
+    @Test
+    void suspends_again_after_resuming() throws Exception {
+        List<String> steps = new CopyOnWriteArrayList<>();
+        app.get("/steps",
+                (IAsyncMiddleware) (req, res, next) -> later(() -> steps.add("first")),
+                (req, res, next) -> steps.add("between"),
+                (IAsyncMiddleware) (req, res, next) -> later(() -> steps.add("second")),
+                (req, res, next) -> res.send(String.join(",", steps)));
+
+        assertThat(get("/steps").getContent().trim()).isEqualTo("first,between,second");
+    }
+
+    @Test
+    void hands_a_failed_stage_to_the_error_handlers_and_skips_the_rest() throws Exception {
+        app.get("/fail",
+                (IAsyncMiddleware) (req, res, next) -> later(() -> {
+                    throw new IllegalStateException("stage failed");
+                }),
+                (req, res, next) -> {
+                    seen.put("ran", true);
+                    res.send("should not get here");
+                });
+
+        assertThat(get("/fail").getContent()).contains("stage failed");
+        assertThat(seen).doesNotContainKey("ran");
+    }
+
+    @Test
+    void fails_a_request_that_stays_suspended_past_the_timeout() throws Exception {
+        asyncTimeout = 100;
+        CompletableFuture<Void> never = new CompletableFuture<>();
+        app.get("/slow",
+                (IAsyncMiddleware) (req, res, next) -> never,
+                (req, res, next) -> {
+                    seen.put("ran", true);
+                    res.send("should not get here");
+                });
+
+        assertThat(get("/slow").getContent()).contains("still waiting on an async middleware after 100 ms");
+        never.complete(null); // too late, so nothing is resumed
+        Thread.sleep(100);
+        assertThat(seen).doesNotContainKey("ran");
+    }
+
+    @Test
+    void runs_async_param_callbacks_ahead_of_the_handlers() throws Exception {
+        app.param("id", (IAsyncParamCallback) (req, res, next, id) -> later(() -> seen.put("loaded", "item-" + id)));
+        app.get("/items/:id", (req, res, next) -> res.send("got " + seen.get("loaded")));
+
+        assertThat(get("/items/42").getContent().trim()).isEqualTo("got item-42");
+    }
+
+    @Test
+    void stops_the_chain_when_a_param_callback_fails() throws Exception {
+        app.param("id", (req, res, next, id) -> next.error(new IllegalArgumentException("bad id " + id)));
+        app.get("/items/:id", (req, res, next) -> {
+            seen.put("ran", true);
+            res.send("should not get here");
+        });
+
+        assertThat(get("/items/x").getContent()).contains("bad id x");
+        assertThat(seen).doesNotContainKey("ran");
+    }
+
+    @Test
+    void reads_the_body_in_an_async_middleware_and_carries_on() throws Exception {
+        app.post("/upload",
+                (IAsyncMiddleware) (req, res, next) -> req.readAsync(16).thenAccept(bytes -> seen.put("body", new String(bytes))),
+                (req, res, next) -> res.send("got " + seen.get("body")));
+        app.post("/small",
+                (IAsyncMiddleware) (req, res, next) -> req.readAsync(4),
+                (req, res, next) -> res.send("should not get here"));
+
+        assertThat(post("/upload", 5, "hello").getContent().trim()).isEqualTo("got hello");
+        assertThat(post("/small", 5, "hello").getContent()).contains("larger than the 4 bytes allowed");
+    }
+
+    @Test
+    void ends_a_request_whose_body_stalls_and_tells_the_reader() throws Exception {
+        asyncTimeout = 100;
+        app.post("/upload", (req, res, next) -> req.readAsync(chunk -> {
+        }, () -> res.send("done"), error -> seen.put("error", error.getMessage())));
+
+        assertThat(post("/upload", 10, "only").getContent()).contains("still not ended after 100 ms");
+        Thread.sleep(100);
+        assertThat(seen).containsEntry("error", "The request timed out before its body was read");
+    }
+
+    @Test
+    void ends_a_request_that_the_read_callbacks_leave_open() throws Exception {
+        asyncTimeout = 100;
+        app.post("/upload", (req, res, next) -> req.readAsync(chunk -> {
+            throw new IllegalStateException("no uploads here");
+        }, () -> res.send("done"), error -> seen.put("error", error.getMessage())));
+
+        assertThat(post("/upload", 5, "hello").getContent()).contains("still not ended after 100 ms");
+        assertThat(seen).containsEntry("error", "no uploads here");
+    }
+
+    @Test
+    void a_body_there_is_no_parser_for_is_answered_with_a_415() throws Exception {
+        app.post("/upload", (req, res, next) -> res.send("read " + req.body()));
+
+        HttpTester.Response unknown = send("POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Type: image/png\r\n"
+                + "Content-Length: 3\r\nConnection: close\r\n\r\nabc");
+        assertThat(unknown.getStatus()).isEqualTo(415);
+        assertThat(unknown.getContent()).contains("There is no content parser configured for the type image/png");
+
+        HttpTester.Response missing = post("/upload", 3, "abc");
+        assertThat(missing.getStatus()).isEqualTo(415);
+    }
+}
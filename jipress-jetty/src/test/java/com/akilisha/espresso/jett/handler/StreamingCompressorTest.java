@@ -0,0 +1,87 @@
+package com.akilisha.espresso.jett.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingCompressorTest {
+
+    static byte[] compress(String encoding, byte[] data, int chunkSize) {
+        StreamingCompressor compressor = new StreamingCompressor(encoding, -1);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteBuffer output = ByteBuffer.allocate(64); // far smaller than the input, to go through many rounds
+        int offset = 0;
+        do {
+            int length = Math.min(chunkSize, data.length - offset);
+            boolean last = offset + length == data.length;
+            compressor.input(ByteBuffer.wrap(data, offset, length));
+            offset += length;
+            do {
+                output.clear();
+                compressor.deflate(output, last);
+                output.flip();
+                compressed.write(output.array(), 0, output.limit());
+            } while (last ? !compressor.finished() : output.hasRemaining());
+            assertThat(compressor.needsInput()).isTrue();
+        } while (offset < data.length);
+        compressor.end();
+        return compressed.toByteArray();
+    }
+
+    static byte[] body() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("line ").append(i).append(" of the response body\n");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void producesAValidGzipStreamFromManyChunks() throws IOException {
+        byte[] data = body();
+        byte[] compressed = compress(StreamingCompressor.GZIP, data, 1000);
+        assertThat(compressed.length).isLessThan(data.length);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()).isEqualTo(data);
+    }
+
+    @Test
+    void producesAValidDeflateStream() throws IOException {
+        byte[] data = body();
+        byte[] compressed = compress(StreamingCompressor.DEFLATE, data, 4096);
+        assertThat(new InflaterInputStream(new ByteArrayInputStream(compressed)).readAllBytes()).isEqualTo(data);
+    }
+
+    @Test
+    void compressesAnEmptyBody() throws IOException {
+        byte[] compressed = compress(StreamingCompressor.GZIP, new byte[0], 10);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()).isEmpty();
+    }
+
+    @Test
+    void aFlushWritesOutEverythingTakenInSoFar() throws IOException {
+        byte[] data = body();
+        StreamingCompressor compressor = new StreamingCompressor(StreamingCompressor.DEFLATE, -1);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteBuffer output = ByteBuffer.allocate(64);
+        compressor.input(ByteBuffer.wrap(data, 0, 1000));
+        do {
+            output.clear();
+            compressor.deflate(output, false, true);
+            output.flip();
+            compressed.write(output.array(), 0, output.limit());
+        } while (output.hasRemaining());
+        compressor.end();
+
+        InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed.toByteArray()));
+        assertThat(in.readNBytes(1000)).isEqualTo(Arrays.copyOf(data, 1000)); // with no more to come yet
+    }
+}
@@ -0,0 +1,48 @@
+package com.akilisha.espresso.jett.response;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteRangeTest {
+
+    @Test
+    void parsesBoundedOpenAndSuffixRanges() {
+        ByteRange bounded = ByteRange.parse("bytes=0-499", 1000);
+        assertThat(bounded.start).isEqualTo(0);
+        assertThat(bounded.end).isEqualTo(499);
+        assertThat(bounded.length()).isEqualTo(500);
+        assertThat(bounded.contentRange(1000)).isEqualTo("bytes 0-499/1000");
+
+        ByteRange open = ByteRange.parse("bytes=900-", 1000);
+        assertThat(open.start).isEqualTo(900);
+        assertThat(open.end).isEqualTo(999);
+
+        ByteRange suffix = ByteRange.parse("bytes=-100", 1000);
+        assertThat(suffix.start).isEqualTo(900);
+        assertThat(suffix.end).isEqualTo(999);
+    }
+
+    @Test
+    void clampsTheEndToTheFileSize() {
+        ByteRange range = ByteRange.parse("bytes=500-5000", 1000);
+        assertThat(range.end).isEqualTo(999);
+        assertThat(ByteRange.parse("bytes=-5000", 1000).start).isEqualTo(0);
+    }
+
+    @Test
+    void reportsRangesPastTheEndAsUnsatisfiable() {
+        assertThat(ByteRange.parse("bytes=1000-", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.parse("bytes=-0", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.UNSATISFIABLE.contentRange(1000)).isEqualTo("bytes */1000");
+    }
+
+    @Test
+    void ignoresHeadersItCannotServe() {
+        assertThat(ByteRange.parse(null, 1000)).isNull();
+        assertThat(ByteRange.parse("items=0-1", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=0-1,5-6", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=5-1", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=a-b", 1000)).isNull();
+    }
+}
@@ -0,0 +1,47 @@
+package com.akilisha.espresso.jett.response;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagTest {
+
+    @Test
+    void readsTheModeFromTheSetting() {
+        assertThat(ETag.mode("weak")).isEqualTo(ETag.WEAK);
+        assertThat(ETag.mode(true)).isEqualTo(ETag.WEAK);
+        assertThat(ETag.mode("strong")).isEqualTo(ETag.STRONG);
+        assertThat(ETag.mode(false)).isNull();
+        assertThat(ETag.mode(null)).isNull();
+    }
+
+    @Test
+    void hashesTheBodyIntoTheTag() {
+        byte[] body = "hello world".getBytes(StandardCharsets.UTF_8);
+        String strong = ETag.of(body, 0, body.length, false);
+        assertThat(strong).startsWith("\"b-").endsWith("\"").hasSize(31);
+        assertThat(ETag.of(body, 0, body.length, true)).isEqualTo("W/" + strong);
+        assertThat(ETag.of(body, 0, 5, false)).isNotEqualTo(strong);
+    }
+
+    @Test
+    void comparesWeakly() {
+        assertThat(ETag.matches("W/\"b-abc\"", "\"b-abc\"")).isTrue();
+        assertThat(ETag.matches("\"b-abc\"", "W/\"b-abc\"")).isTrue();
+        assertThat(ETag.matches("\"b-abd\"", "\"b-abc\"")).isFalse();
+        assertThat(ETag.matches("\"b-abc\"", null)).isFalse();
+        assertThat(ETag.of(100, 1000, true)).isEqualTo("W/\"64-3e8\"");
+    }
+
+    @Test
+    void comparesStrongly() {
+        assertThat(ETag.matchesStrongly("\"b-abc\"", "\"b-abc\"")).isTrue();
+        assertThat(ETag.matchesStrongly("W/\"b-abc\"", "W/\"b-abc\"")).isFalse();
+        assertThat(ETag.matchesStrongly("W/\"b-abc\"", "\"b-abc\"")).isFalse();
+        assertThat(ETag.matchesStrongly("\"b-abc\"", "W/\"b-abc\"")).isFalse();
+        assertThat(ETag.matchesStrongly("\"b-abd\"", "\"b-abc\"")).isFalse();
+        assertThat(ETag.matchesStrongly("\"b-abc\"", null)).isFalse();
+    }
+}
@@ -0,0 +1,410 @@
+package com.akilisha.espresso.jett.response;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import com.akilisha.espresso.api.attachment.AttachmentOptions;
+import com.akilisha.espresso.api.attachment.AttachmentOptionsBuilder;
+import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.content.IJsonCodec;
+import com.akilisha.espresso.api.request.IRequest;
+import com.akilisha.espresso.api.response.IResponse;
+import com.akilisha.espresso.api.view.IViewEngine;
+import com.akilisha.espresso.jett.application.Application;
+import com.akilisha.espresso.jett.content.BodyParsersCache;
+import com.akilisha.espresso.jett.content.JsonCodecCache;
+import com.akilisha.espresso.jett.handler.RouteHandler;
+import com.akilisha.espresso.jett.view.ViewEnginesCache;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.akilisha.espresso.api.content.IContentType.APPLICATION_JSON;
+import static com.akilisha.espresso.api.content.IContentType.APPLICATION_OCTET_STREAM;
+import static com.akilisha.espresso.api.content.IContentType.TEXT_PLAIN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResTest {
+
+    // writes the value as a JSON string, a chunk at a time
+    static final IJsonCodec codec = new IJsonCodec() {
+        @Override
+        public void init(Map<String, Object> params) {
+        }
+
+        @Override
+        public void write(Object value, OutputStream out) throws IOException {
+            out.write('"');
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i += 1000) {
+                out.write(bytes, i, Math.min(1000, bytes.length - i));
+            }
+            out.write('"');
+        }
+    };
+
+    @TempDir
+    Path dir;
+    Server server;
+    LocalConnector connector;
+
+    @BeforeEach
+    void register() {
+        JsonCodecCache.deregister();
+        JsonCodecCache.register(codec);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        JsonCodecCache.deregister();
+        ViewEnginesCache.deregister();
+        BodyParsersCache.deregister();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    HttpTester.Response get(Application app, String path, String ifNoneMatch) throws Exception {
+        return request(app, path, ifNoneMatch != null ? Map.of("If-None-Match", ifNoneMatch) : Map.of());
+    }
+
+    HttpTester.Response request(Application app, String path, Map<String, String> headers) throws Exception {
+        if (server == null) {
+            server = new Server();
+            connector = new LocalConnector(server);
+            server.addConnector(connector);
+            server.setHandler(new RouteHandler(app));
+            server.start();
+        }
+        StringBuilder extra = new StringBuilder();
+        headers.forEach((name, value) -> extra.append(name).append(": ").append(value).append("\r\n"));
+        return HttpTester.parseResponse(connector.getResponse(String.format(
+                "GET %s HTTP/1.1\r\nHost: localhost\r\n%sConnection: close\r\n\r\n", path, extra), 5, TimeUnit.SECONDS));
+    }
+
+    static Application withSettings(Object etag) {
+        Application app = new Application() {
+
+            final AppSettings settings = new AppSettings();
+
+            @Override
+            public AppSettings getSettings() {
+                return settings; // as the entry app has
+            }
+        };
+        app.set(AppSettings.Setting.ETAG.property, etag);
+        return app;
+    }
+
+    @Test
+    void apps_without_settings_of_their_own_get_the_default_etag() throws Exception {
+        Application app = new Application();
+        app.get("/hello", (req, res, next) -> res.send("hello"));
+
+        HttpTester.Response response = get(app, "/hello", null);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.get("ETag")).startsWith("W/\"");
+        assertThat(get(app, "/hello", response.get("ETag")).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void small_json_bodies_are_tagged_and_can_be_answered_with_a_304() throws Exception {
+        Application app = withSettings("strong");
+        app.get("/small", (req, res, next) -> res.json("x".repeat(5000)));
+
+        HttpTester.Response response = get(app, "/small", null);
+        assertThat(response.get("ETag")).startsWith("\"");
+        assertThat(response.getContent()).hasSize(5002);
+        assertThat(get(app, "/small", response.get("ETag")).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void strong_etags_of_sent_text_describe_the_bytes_on_the_wire() throws Exception {
+        Application app = withSettings("strong");
+        app.get("/utf8", (req, res, next) -> {
+            res.encoding(StandardCharsets.UTF_8);
+            res.send("caf\u00e9");
+        });
+        app.get("/latin1", (req, res, next) -> {
+            res.encoding(StandardCharsets.ISO_8859_1);
+            res.send("caf\u00e9");
+        });
+
+        HttpTester.Response utf8 = get(app, "/utf8", null);
+        byte[] utf8Body = utf8.getContentBytes();
+        assertThat(utf8.get("ETag")).isEqualTo(ETag.of(utf8Body, 0, utf8Body.length, false));
+
+        HttpTester.Response latin1 = get(app, "/latin1", null);
+        byte[] latin1Body = latin1.getContentBytes();
+        assertThat(latin1.get("ETag")).isEqualTo(ETag.of(latin1Body, 0, latin1Body.length, false))
+                .isNotEqualTo(utf8.get("ETag"));
+    }
+
+    @Test
+    void bodies_bigger_than_the_response_buffer_are_streamed_without_an_etag() throws Exception {
+        Application app = withSettings("weak");
+        app.get("/big", (req, res, next) -> res.json("x".repeat(100_000)));
+        app.get("/text", (req, res, next) -> res.send("y".repeat(100_000)));
+
+        HttpTester.Response json = get(app, "/big", null);
+        assertThat(json.getStatus()).isEqualTo(200);
+        assertThat(json.get("ETag")).isNull();
+        assertThat(json.getContent()).hasSize(100_002).startsWith("\"xxx").endsWith("xxx\"");
+
+        HttpTester.Response text = get(app, "/text", null);
+        assertThat(text.get("ETag")).isNull();
+        assertThat(text.getContent().trim()).hasSize(100_000);
+    }
+
+    @Test
+    void turning_etags_off_leaves_them_out() throws Exception {
+        Application app = withSettings(false);
+        app.get("/json", (req, res, next) -> res.json("value"));
+
+        HttpTester.Response response = get(app, "/json", null);
+        assertThat(response.get("ETag")).isNull();
+        assertThat(response.getContent()).isEqualTo("\"value\"");
+    }
+
+    @Test
+    void rendered_pages_are_streamed_out_as_they_are_written() throws Exception {
+        Application app = viewsApp();
+        app.get("/page", (req, res, next) -> res.render("page", Map.of("size", 100_000)));
+
+        HttpTester.Response response = get(app, "/page", null);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.get("Content-Length")).isNull(); // not known up front
+        assertThat(response.get("ETag")).isNull(); // bigger than the response buffer
+        assertThat(response.get("Content-Type")).startsWith("text/html");
+        assertThat(response.getContent()).hasSize(100_000).matches("z+");
+    }
+
+    @Test
+    void small_rendered_pages_are_tagged_and_can_be_answered_with_a_304() throws Exception {
+        Application app = viewsApp();
+        app.get("/small", (req, res, next) -> res.render("small", Map.of("size", 5000)));
+
+        HttpTester.Response response = get(app, "/small", null);
+        assertThat(response.get("ETag")).startsWith("W/\"");
+        assertThat(response.get("Content-Type")).startsWith("text/html");
+        assertThat(response.getContent()).hasSize(5000).matches("z+");
+        assertThat(get(app, "/small", response.get("ETag")).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void a_render_that_fails_before_anything_went_out_becomes_a_500() throws Exception {
+        Application app = viewsApp();
+        app.get("/broken", (req, res, next) -> res.render("broken", Map.of()));
+
+        HttpTester.Response response = get(app, "/broken", null);
+        assertThat(response.getStatus()).isEqualTo(500);
+        assertThat(response.getContent().trim()).isEqualTo("no such view: broken");
+    }
+
+    @Test
+    void files_sent_off_the_thread_are_not_held_to_the_async_timeout() throws Exception {
+        Path file = dir.resolve("big.bin");
+        Files.write(file, "f".repeat(200_000).getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> seen = new ConcurrentHashMap<>();
+        Application app = withSettings("weak");
+        app.get("/file", (req, res, next) -> {
+            AsyncContext async = req.rawRequest(HttpServletRequest.class).startAsync();
+            res.sendFile(file.toString(), null, error -> seen.put("error", String.valueOf(error)));
+            seen.put("timeout", async.getTimeout());
+        });
+
+        HttpTester.Response response = get(app, "/file", null);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContent()).hasSize(200_000);
+        Thread.sleep(100); // the response may be out before the handler has returned
+        assertThat(seen).containsEntry("timeout", 0L).doesNotContainKey("error");
+    }
+
+    @Test
+    void files_outside_of_the_root_are_refused() throws Exception {
+        Path root = Files.createDirectories(dir.resolve("public"));
+        Files.writeString(root.resolve("inside.txt"), "inside");
+        Files.writeString(dir.resolve("secret.txt"), "secret");
+        AttachmentOptions options = AttachmentOptionsBuilder.newBuilder().root(root.toString()).build();
+        Application app = withSettings(false);
+        app.get("/send", (req, res, next) -> res.sendFile("../secret.txt", options, error -> {
+            res.status(403);
+            res.send(error.getClass().getSimpleName());
+        }));
+        app.get("/download", (req, res, next) -> res.download("..", "secret.txt", options, error -> {
+            res.status(403);
+            res.send(error.getClass().getSimpleName());
+        }));
+        app.get("/inside", (req, res, next) -> res.sendFile("nested/../inside.txt", options, error -> res.sendStatus(500)));
+
+        HttpTester.Response sent = get(app, "/send", null);
+        assertThat(sent.getStatus()).isEqualTo(403);
+        assertThat(sent.getContent().trim()).isEqualTo("AccessDeniedException");
+
+        HttpTester.Response downloaded = get(app, "/download", null);
+        assertThat(downloaded.getStatus()).isEqualTo(403);
+        assertThat(downloaded.getContent().trim()).isEqualTo("AccessDeniedException");
+
+        HttpTester.Response inside = get(app, "/inside", null);
+        assertThat(inside.getStatus()).isEqualTo(200);
+        assertThat(inside.getContent()).isEqualTo("inside");
+    }
+
+    @Test
+    void ranges_are_only_resumed_against_a_strong_etag() throws Exception {
+        Path file = dir.resolve("range.txt");
+        Files.writeString(file, "0123456789");
+        Application weak = withSettings("weak");
+        weak.get("/file", (req, res, next) -> res.sendFile(file.toString(), null, error -> res.sendStatus(500)));
+
+        String weakTag = request(weak, "/file", Map.of()).get("ETag");
+        assertThat(weakTag).startsWith("W/\"");
+        HttpTester.Response whole = request(weak, "/file", Map.of("Range", "bytes=2-4", "If-Range", weakTag));
+        assertThat(whole.getStatus()).isEqualTo(200);
+        assertThat(whole.getContent()).isEqualTo("0123456789");
+        server.stop();
+        server = null;
+
+        Application strong = withSettings("strong");
+        strong.get("/file", (req, res, next) -> res.sendFile(file.toString(), null, error -> res.sendStatus(500)));
+
+        String strongTag = request(strong, "/file", Map.of()).get("ETag");
+        HttpTester.Response part = request(strong, "/file", Map.of("Range", "bytes=2-4", "If-Range", strongTag));
+        assertThat(part.getStatus()).isEqualTo(206);
+        assertThat(part.getContent()).isEqualTo("234");
+        HttpTester.Response stale = request(strong, "/file", Map.of("Range", "bytes=2-4", "If-Range", "\"a-0\""));
+        assertThat(stale.getStatus()).isEqualTo(200);
+        assertThat(stale.getContent()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void format_picks_the_type_from_the_accept_header() throws Exception {
+        BodyParsersCache.register(APPLICATION_JSON, new WritingParser(APPLICATION_JSON, true));
+        BodyParsersCache.register(APPLICATION_OCTET_STREAM, new WritingParser(APPLICATION_OCTET_STREAM, false));
+        BodyParsersCache.register(TEXT_PLAIN, new WritingParser(TEXT_PLAIN, true));
+        Application app = withSettings(false);
+        app.get("/greeting", (req, res, next) -> res.format("hello"));
+
+        HttpTester.Response text = request(app, "/greeting", Map.of("Accept", "application/json;q=0.5, text/*"));
+        assertThat(text.getStatus()).isEqualTo(200);
+        assertThat(text.get("Content-Type")).startsWith(TEXT_PLAIN);
+        assertThat(text.getContent().trim()).isEqualTo("text: hello");
+        assertThat(text.get("Vary")).isEqualTo("Accept");
+
+        HttpTester.Response json = request(app, "/greeting", Map.of("Accept", "*/*"));
+        assertThat(json.get("Content-Type")).startsWith(APPLICATION_JSON);
+        assertThat(json.getContent()).isEqualTo("\"hello\""); // through the codec
+        assertThat(json.get("Vary")).isEqualTo("Accept");
+
+        HttpTester.Response none = request(app, "/greeting", Map.of("Accept", "application/octet-stream, image/*"));
+        assertThat(none.getStatus()).isEqualTo(406); // octet-stream is registered, but cannot write
+        assertThat(none.get("Vary")).isEqualTo("Accept");
+    }
+
+    // writes 'text: ' and the value, if it is one that writes at all
+    static class WritingParser implements IBodyParser {
+
+        final String contentType;
+        final boolean writes;
+
+        WritingParser(String contentType, boolean writes) {
+            this.contentType = contentType;
+            this.writes = writes;
+        }
+
+        @Override
+        public void init(Map<String, Object> params) {
+        }
+
+        @Override
+        public String contentType() {
+            return this.contentType;
+        }
+
+        @Override
+        public Object read(IRequest request) {
+            return null;
+        }
+
+        @Override
+        public void write(IResponse response, Object data) {
+            response.contentType(this.contentType);
+            response.send("text: " + data);
+        }
+
+        @Override
+        public boolean writes() {
+            return this.writes;
+        }
+    }
+
+    static Application viewsApp() {
+        ViewEnginesCache.register("stream", new StreamingEngine());
+        Application app = withSettings("weak");
+        app.set(AppSettings.Setting.VIEW_ENGINE.property, "stream");
+        app.set(AppSettings.Setting.TEMPLATES_DIR.property, "views");
+        app.set(AppSettings.Setting.TEMPLATES_EXT.property, ".html");
+        return app;
+    }
+
+    // writes 'size' characters for any view but 'broken', a thousand at a time
+    public static class StreamingEngine implements IViewEngine {
+
+        String templateDir;
+
+        @Override
+        public String name() {
+            return "stream";
+        }
+
+        @Override
+        public void templateDir(String dirName) {
+            this.templateDir = dirName;
+        }
+
+        @Override
+        public String templateDir() {
+            return this.templateDir;
+        }
+
+        @Override
+        public String mergeTemplate(String fileName, Map<String, Object> model) {
+            return fileName;
+        }
+
+        @Override
+        public String mergeContent(String content, Map<String, Object> model) {
+            return content;
+        }
+
+        @Override
+        public String render(AppSettings settings, String template, Map<String, Object> model) {
+            return template;
+        }
+
+        @Override
+        public void render(AppSettings settings, String template, Map<String, Object> model, Writer writer) throws IOException {
+            if (template.equals("broken")) {
+                throw new IOException("no such view: " + template);
+            }
+            int size = (int) model.get("size");
+            for (int i = 0; i < size; i += 1000) {
+                writer.write("z".repeat(Math.min(1000, size - i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByPathRadixTest {
+
+    final IMiddleware first = (req, res, next) -> {
+    };
+    final IMiddleware second = (req, res, next) -> {
+    };
+    final IMiddleware before = (req, res, next) -> {
+    };
+
+    @Test
+    void select_static_and_compressed_paths() {
+        ByPathRadix routes = new ByPathRadix();
+        routes.store(ReqMethod.GET, "/shop/aile/bananas", first);
+        routes.store(ReqMethod.GET, "/shop/aile", second);
+        routes.store(ReqMethod.GET, "/", before);
+
+        assertThat(routes.select(ReqMethod.GET, "/shop/aile/bananas").getHandlers()).containsExactly(first);
+        assertThat(routes.select(ReqMethod.GET, "/shop/aile").getHandlers()).containsExactly(second);
+        assertThat(routes.select(ReqMethod.GET, "/").getHandlers()).containsExactly(before);
+        assertThat(routes.select(ReqMethod.GET, "/shop").getHandlers()).isNull();
+        assertThat(routes.select(ReqMethod.GET, "/shop/aile/").getHandlers()).isNull();
+    }
+
+    @Test
+    void select_path_params() {
+        ByPathRadix routes = new ByPathRadix();
+        routes.store(ReqMethod.GET, "/users/:userId/books/:bookId", first);
+        routes.store(ReqMethod.GET, "/users/:userId", second);
+
+        IMatched matched = routes.select(ReqMethod.GET, "/users/34/books/8989");
+        assertThat(matched.getHandlers()).containsExactly(first);
+        assertThat(matched.getParams()).containsEntry("userId", "34").containsEntry("bookId", "8989");
+
+        matched = routes.select(ReqMethod.GET, "/users/ab-c_1");
+        assertThat(matched.getHandlers()).containsExactly(second);
+        assertThat(matched.getParams()).containsEntry("userId", "ab-c_1");
+    }
+
+    @Test
+    void select_regex_and_wildcard_paths() {
+        ByPathRadix routes = new ByPathRadix();
+        routes.store(ReqMethod.GET, "/flights/:from-:to", first);
+        routes.store(ReqMethod.GET, "^/commits/(\\w+)(?:\\.\\.(\\w+))?$", second);
+        routes.store(ReqMethod.GET, "/files/*", before);
+
+        IMatched flights = routes.select(ReqMethod.GET, "/flights/nyc-lax");
+        assertThat(flights.getHandlers()).containsExactly(first);
+        assertThat(flights.getParams()).containsEntry("from", "nyc").containsEntry("to", "lax");
+
+        IMatched commits = routes.select(ReqMethod.GET, "/commits/71dbb9c..4c084f9");
+        assertThat(commits.getHandlers()).containsExactly(second);
+        assertThat(commits.getParams()).containsEntry("0", "71dbb9c").containsEntry("1", "4c084f9");
+
+        // the same as ByPathRegex, a trailing '*' only allows for trailing slashes
+        assertThat(routes.select(ReqMethod.GET, "/files").getHandlers()).containsExactly(before);
+        assertThat(routes.select(ReqMethod.GET, "/files//").getHandlers()).containsExactly(before);
+        assertThat(routes.select(ReqMethod.GET, "/files/css/site.css").getHandlers()).isNull();
+    }
+
+    @Test
+    void select_honours_registration_order() {
+        ByPathRadix routes = new ByPathRadix();
+        routes.store(ReqMethod.GET, "/ab*cd", first);
+        routes.store(ReqMethod.GET, "/abcd", second);
+
+        assertThat(routes.select(ReqMethod.GET, "/abcd").getHandlers()).containsExactly(first);
+    }
+
+    @Test
+    void select_merges_before_handlers() {
+        ByPathRadix routes = new ByPathRadix();
+        routes.store("/[\\w/]+", before);
+        routes.store(ReqMethod.GET, "/users/:userId", first);
+
+        assertThat(routes.select(ReqMethod.GET, "/users/1").getHandlers()).containsExactly(before, first);
+    }
+
+    @Test
+    void store_rejects_duplicate_paths() {
+        ByPathRadix routes = new ByPathRadix();
+        routes.store(ReqMethod.GET, "/users/:userId", first);
+        assertThatThrownBy(() -> routes.store(ReqMethod.GET, "/users/:userId", second))
+                .isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IRoutable;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathParamsTest {
+
+    final IMiddleware handler = (req, res, next) -> {
+    };
+
+    @Test
+    void repeated_param_name_keeps_its_last_value_and_the_map_contract() {
+        for (IRoutable routes : new IRoutable[]{new ByPathRegex(), new ByPathRadix()}) {
+            routes.store(ReqMethod.GET, "/orgs/:id/teams/:name/members/:id", handler);
+
+            Map<String, String> params = routes.select(ReqMethod.GET, "/orgs/7/teams/core/members/42").getParams();
+            assertThat(params.get("id")).isEqualTo("42");
+            assertThat(params).hasSize(2).containsOnlyKeys("id", "name");
+            assertThat(new HashMap<>(params)).hasSize(params.size()).isEqualTo(Map.of("id", "42", "name", "core"));
+        }
+    }
+
+    @Test
+    void values_are_read_lazily_from_the_match() {
+        ByPathRegex routes = new ByPathRegex();
+        routes.store(ReqMethod.GET, "/users/:userId/books/:bookId", new IMiddleware[]{handler});
+
+        Map<String, String> params = routes.select(ReqMethod.GET, "/users/34/books/8989").getParams();
+        assertThat(params).containsExactly(Map.entry("userId", "34"), Map.entry("bookId", "8989"));
+        assertThat(params.containsKey("missing")).isFalse();
+    }
+}
@@ -0,0 +1,157 @@
+package com.akilisha.espresso.jett.routable;
+
+import com.akilisha.espresso.api.middleware.IMiddleware;
+import com.akilisha.espresso.api.request.ReqMethod;
+import com.akilisha.espresso.api.routeable.IMatched;
+import com.akilisha.espresso.api.routeable.IRoutable;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteTableTest {
+
+    static final List<String> PATHS = List.of("/", "/users", "/users/", "/users/34", "/users/ab-c_1", "/users/a.b",
+            "/users/34/books/8989", "/users/34/books", "/files", "/files/", "/files//", "/files/css/site.css",
+            "/flights/nyc-lax", "/commits/71dbb9c..4c084f9", "/commits/71dbb9c", "/abcd", "/abxyzcd", "/api/v1/ping",
+            "/api", "/nowhere", "");
+
+    final IMiddleware home = (req, res, next) -> {
+    };
+    final IMiddleware user = (req, res, next) -> {
+    };
+    final IMiddleware book = (req, res, next) -> {
+    };
+    final IMiddleware files = (req, res, next) -> {
+    };
+    final IMiddleware flights = (req, res, next) -> {
+    };
+    final IMiddleware commits = (req, res, next) -> {
+    };
+    final IMiddleware wildcard = (req, res, next) -> {
+    };
+    final IMiddleware exact = (req, res, next) -> {
+    };
+    final IMiddleware ping = (req, res, next) -> {
+    };
+    final IMiddleware create = (req, res, next) -> {
+    };
+    final IMiddleware api = (req, res, next) -> {
+    };
+    final IMiddleware users = (req, res, next) -> {
+    };
+
+    ByMethod routes() {
+        return fill(new ByMethod());
+    }
+
+    ByMethod fill(ByMethod routes) {
+        routes.store("/api/*", api);
+        routes.store("/users/[\\w-]+", users);
+        routes.store(ReqMethod.GET, "/", new IMiddleware[]{home});
+        routes.store(ReqMethod.GET, "/users/:userId", new IMiddleware[]{user});
+        routes.store(ReqMethod.GET, "/users/:userId/books/:bookId", new IMiddleware[]{book});
+        routes.store(ReqMethod.GET, "/files/*", new IMiddleware[]{files});
+        routes.store(ReqMethod.GET, "/flights/:from-:to", new IMiddleware[]{flights});
+        routes.store(ReqMethod.GET, "^/commits/(\\w+)(?:\\.\\.(\\w+))?$", new IMiddleware[]{commits});
+        routes.store(ReqMethod.GET, "/ab*cd", new IMiddleware[]{wildcard});
+        routes.store(ReqMethod.GET, "/abcd", new IMiddleware[]{exact});
+        routes.store(ReqMethod.GET, "/api/v1/ping", new IMiddleware[]{ping});
+        routes.store(ReqMethod.POST, "/users", new IMiddleware[]{create});
+        routes.store("/users/*", users);
+        return routes;
+    }
+
+    static void assertSameDispatch(IRoutable expected, IRoutable actual) {
+        for (ReqMethod method : List.of(ReqMethod.GET, ReqMethod.POST, ReqMethod.PUT)) {
+            for (String path : PATHS) {
+                IMatched want = expected.select(method, path);
+                IMatched got = actual.select(method, path);
+                assertThat(got.getHandlers()).as("%s %s", method, path).isEqualTo(want.getHandlers());
+                assertThat(new HashMap<>(got.getParams())).as("%s %s", method, path).isEqualTo(new HashMap<>(want.getParams()));
+            }
+        }
+    }
+
+    @Test
+    void radix_and_regex_matchers_route_the_same_table_alike() {
+        assertSameDispatch(RouteTable.compile(routes(), "regex"), RouteTable.compile(routes(), ByMethod.RADIX_MATCHER));
+    }
+
+    @Test
+    void radix_matcher_passed_in_to_by_method_routes_like_the_regex_one() {
+        assertSameDispatch(routes(), fill(new ByMethod(ByPathRadix::new)));
+    }
+
+    @Test
+    void compiled_table_dispatches_like_the_routes_it_was_compiled_from() {
+        assertSameDispatch(routes(), RouteTable.compile(routes(), "regex"));
+    }
+
+    @Test
+    void compiled_table_keeps_before_chains_params_and_misses() {
+        IRoutable compiled = RouteTable.compile(routes(), "regex");
+        IMatched matched = compiled.select(ReqMethod.GET, "/users/34");
+        assertThat(matched.getHandlers()).containsExactly(users, user);
+        assertThat(matched.getParams()).containsEntry("userId", "34");
+        assertThat(compiled.select(ReqMethod.GET, "/users/34/books/8989").getHandlers()).containsExactly(users, book);
+        assertThat(compiled.select(ReqMethod.GET, "/api/v1/ping").getHandlers()).containsExactly(api, ping);
+        assertThat(compiled.select(ReqMethod.GET, "/abcd").getHandlers()).containsExactly(wildcard);
+        assertThat(compiled.select(ReqMethod.POST, "/users").getHandlers()).containsExactly(create);
+        assertThat(compiled.select(ReqMethod.PUT, "/users").getHandlers()).isNull();
+        assertThat(compiled.select(ReqMethod.GET, "/nowhere").getHandlers()).isNull();
+
+        ByMethod getOnly = new ByMethod();
+        getOnly.store(ReqMethod.GET, "/users", new IMiddleware[]{user});
+        assertThat(RouteTable.compile(getOnly, "regex").select(ReqMethod.DELETE, "/users").getHandlers()).isNull();
+    }
+
+    @Test
+    void before_chain_leaves_only_the_patterns_a_route_may_or_may_not_match() {
+        Pattern[] befores = {Pattern.compile("/api/.*"), Pattern.compile("/users/[\\w-]+"), Pattern.compile("/users/.*")};
+        IMiddleware[][] handlers = {{api}, {users}, {files}};
+
+        BeforeChain literal = BeforeChain.resolve("/api/v1/ping", new IMiddleware[]{ping}, befores, handlers);
+        assertThat(literal.patterns).isEmpty();
+        assertThat(literal.select("/api/v1/ping")).containsExactly(api, ping);
+
+        BeforeChain covered = BeforeChain.resolve("/api/([\\w-]+)", new IMiddleware[]{ping}, befores, handlers);
+        assertThat(covered.patterns).isEmpty();
+        assertThat(covered.select("/api/v2")).containsExactly(api, ping);
+
+        BeforeChain param = BeforeChain.resolve("/users/([\\w-]+)", new IMiddleware[]{user}, befores, handlers);
+        assertThat(param.patterns).containsExactly(befores[1]);
+        assertThat(param.select("/users/34")).containsExactly(users, user);
+
+        BeforeChain none = BeforeChain.resolve("/books/([\\w-]+)", new IMiddleware[]{book}, befores, handlers);
+        assertThat(none.patterns).isEmpty();
+        assertThat(none.select("/books/1")).containsExactly(book);
+    }
+
+    @Test
+    void routable_dispatches_from_the_compiled_table_and_rejects_new_routes() {
+        Routable routable = new Routable();
+        routable.store(ReqMethod.GET, "/users/:userId", user);
+        routable.compile("regex");
+
+        assertThat(routable.select(ReqMethod.GET, "/users/1").getParams()).containsEntry("userId", "1");
+        assertThatThrownBy(() -> routable.store(ReqMethod.GET, "/books", book)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void by_path_regex_merges_the_chains_again_when_before_patterns_change() {
+        ByPathRegex routes = new ByPathRegex();
+        routes.store(ReqMethod.GET, "/users/:userId", new IMiddleware[]{user});
+        assertThat(routes.select(ReqMethod.GET, "/users/1").getHandlers()).containsExactly(user);
+
+        routes.store("/users/*", users);
+        assertThat(routes.select(ReqMethod.GET, "/users/1").getHandlers()).containsExactly(users, user);
+
+        routes.store("/users/*", api);
+        assertThat(routes.select(ReqMethod.GET, "/users/1").getHandlers()).containsExactly(users, api, user);
+    }
+}
@@ -0,0 +1,126 @@
+package com.akilisha.espresso.jett.servable;
+
+import com.akilisha.espresso.jett.response.ETag;
+import com.akilisha.espresso.jett.servable.StaticResourceCache.CachedResource;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingResourceHandlerTest {
+
+    @TempDir
+    Path dir;
+
+    CachingResourceHandler handler(Path base, long revalidateMillis, String etagMode) {
+        CachingResourceHandler handler = new CachingResourceHandler(base, 1024 * 1024, 64 * 1024, false, revalidateMillis, () -> etagMode);
+        handler.setMimeTypes(new MimeTypes()); // as it gets when started
+        return handler;
+    }
+
+    @Test
+    void refusesSymlinksThatLeadOutOfTheBaseDirectory() throws Exception {
+        Path base = Files.createDirectory(dir.resolve("www"));
+        Files.writeString(dir.resolve("secret.txt"), "secret");
+        Files.writeString(base.resolve("page.txt"), "page");
+        Files.createSymbolicLink(base.resolve("leak.txt"), dir.resolve("secret.txt"));
+        Files.createSymbolicLink(base.resolve("alias.txt"), base.resolve("page.txt"));
+
+        CachingResourceHandler handler = handler(base, 1000, ETag.WEAK);
+        assertThat(handler.lookup("/leak.txt")).isNull();
+        assertThat(handler.lookup("/../secret.txt")).isNull();
+        assertThat(handler.lookup("/alias.txt")).isNotNull();
+    }
+
+    @Test
+    void onlyGoesBackToTheFileOnceTheRevalidationPeriodIsOver() throws Exception {
+        Files.writeString(dir.resolve("page.txt"), "first");
+
+        CachingResourceHandler holding = handler(dir, 60_000, ETag.WEAK);
+        CachingResourceHandler checking = handler(dir, 0, ETag.WEAK);
+        CachedResource held = holding.lookup("/page.txt");
+        CachedResource checked = checking.lookup("/page.txt");
+        assertThat(checking.lookup("/page.txt")).isSameAs(checked); // unchanged on disk
+
+        Files.writeString(dir.resolve("page.txt"), "second version");
+        assertThat(holding.lookup("/page.txt")).isSameAs(held);
+        assertThat(checking.lookup("/page.txt").length).isEqualTo("second version".length());
+
+        Files.delete(dir.resolve("page.txt"));
+        assertThat(checking.lookup("/page.txt")).isNull();
+        assertThat(checking.cache.count()).isZero();
+    }
+
+    @Test
+    void sendsTheKindOfEtagThatIsAskedFor() throws Exception {
+        Files.writeString(dir.resolve("page.txt"), "hello");
+        AtomicReference<String> mode = new AtomicReference<>(ETag.STRONG);
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        server.setHandler(new CachingResourceHandler(dir, 1024, 1024, false, 1000, mode::get));
+        server.start();
+        try {
+            HttpTester.Response strong = get(connector);
+            assertThat(strong.getStatus()).isEqualTo(200);
+            assertThat(strong.get("ETag")).startsWith("\"");
+            assertThat(strong.getContent()).isEqualTo("hello");
+
+            mode.set(ETag.WEAK);
+            assertThat(get(connector).get("ETag")).isEqualTo("W/" + strong.get("ETag"));
+
+            mode.set(null);
+            assertThat(get(connector).get("ETag")).isNull();
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void tagsEachEncodingOnItsOwnAndVariesTheNotModifiedToo() throws Exception {
+        Files.writeString(dir.resolve("page.txt"), "hello ".repeat(200));
+        AtomicReference<String> mode = new AtomicReference<>(ETag.STRONG);
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        server.setHandler(new CachingResourceHandler(dir, 1024 * 1024, 64 * 1024, true, 1000, mode::get));
+        server.start();
+        try {
+            HttpTester.Response identity = get(connector, "");
+            HttpTester.Response gzip = get(connector, "Accept-Encoding: gzip\r\n");
+            assertThat(gzip.get("Content-Encoding")).isEqualTo("gzip");
+            assertThat(identity.get("Content-Encoding")).isNull();
+            assertThat(gzip.get("ETag")).isEqualTo(identity.get("ETag").replaceAll("\"$", "-gzip\""));
+            assertThat(identity.get("Vary")).isEqualTo("Accept-Encoding");
+
+            // the identity tag does not stand for the gzipped bytes, and the 304 varies as the 200 does
+            assertThat(get(connector, "Accept-Encoding: gzip\r\nIf-None-Match: " + identity.get("ETag") + "\r\n").getStatus()).isEqualTo(200);
+            HttpTester.Response notModified = get(connector, "Accept-Encoding: gzip\r\nIf-None-Match: " + gzip.get("ETag") + "\r\n");
+            assertThat(notModified.getStatus()).isEqualTo(304);
+            assertThat(notModified.get("Vary")).isEqualTo("Accept-Encoding");
+
+            mode.set(ETag.WEAK);
+            assertThat(get(connector, "Accept-Encoding: gzip\r\n").get("ETag")).isEqualTo("W/" + identity.get("ETag"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    static HttpTester.Response get(LocalConnector connector) throws Exception {
+        return get(connector, "");
+    }
+
+    static HttpTester.Response get(LocalConnector connector, String headers) throws Exception {
+        return HttpTester.parseResponse(connector.getResponse(
+                "GET /page.txt HTTP/1.1\r\nHost: localhost\r\n" + headers + "Connection: close\r\n\r\n", 5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,54 @@
+package com.akilisha.espresso.jett.servable;
+
+import com.akilisha.espresso.jett.response.ETag;
+import com.akilisha.espresso.jett.servable.StaticResourceCache.CachedResource;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaticResourceCacheTest {
+
+    static CachedResource resource(int size) {
+        return new CachedResource("text/plain", 1000L, size, ByteBuffer.allocate(size), null, null);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntriesOnceFull() {
+        StaticResourceCache cache = new StaticResourceCache(300);
+        cache.put(Path.of("a"), resource(100));
+        cache.put(Path.of("b"), resource(100));
+        cache.put(Path.of("c"), resource(100));
+        assertThat(cache.get(Path.of("a"))).isNotNull(); // 'b' is now the least recently used
+
+        cache.put(Path.of("d"), resource(100));
+        assertThat(cache.get(Path.of("b"))).isNull();
+        assertThat(cache.get(Path.of("a"))).isNotNull();
+        assertThat(cache.count()).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(300);
+    }
+
+    @Test
+    void replacingAnEntryDoesNotCountItTwice() {
+        StaticResourceCache cache = new StaticResourceCache(300);
+        cache.put(Path.of("a"), resource(100));
+        cache.put(Path.of("a"), resource(150));
+        assertThat(cache.size()).isEqualTo(150);
+
+        cache.remove(Path.of("a"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void detectsFilesThatChangedOnDisk() {
+        CachedResource resource = resource(100);
+        assertThat(resource.isStale(1000L, 100)).isFalse();
+        assertThat(resource.isStale(2000L, 100)).isTrue();
+        assertThat(resource.isStale(1000L, 120)).isTrue();
+        assertThat(resource.etag(ETag.WEAK)).isEqualTo("W/\"64-3e8\"");
+        assertThat(resource.etag(ETag.STRONG)).isEqualTo("\"64-3e8\"");
+        assertThat(resource.etag(null)).isNull();
+    }
+}
@@ -0,0 +1,194 @@
+package com.akilisha.espresso.jett.view;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import com.akilisha.espresso.api.view.IViewEngine;
+import com.akilisha.espresso.jett.application.Application;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ViewEnginesCacheTest {
+
+    @AfterEach
+    void tearDown() {
+        ViewEnginesCache.deregister();
+    }
+
+    @Test
+    void keepsOneEnginePerTemplateDir() {
+        ViewEnginesCache.register("test", new TestEngine());
+        IViewEngine first = ViewEnginesCache.engine("test", "views/a");
+        IViewEngine second = ViewEnginesCache.engine("test", "views/b");
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.templateDir()).isEqualTo("views/a");
+        assertThat(second.templateDir()).isEqualTo("views/b");
+        assertThat(ViewEnginesCache.engine("test", "views/a")).isSameAs(first);
+    }
+
+    @Test
+    void replacingAnEngineHandsOutNewInstancesOfIt() {
+        ViewEnginesCache.register("test", new TestEngine());
+        IViewEngine before = ViewEnginesCache.engine("test", "views/a");
+
+        ViewEnginesCache.replace("test", new OtherEngine());
+        IViewEngine after = ViewEnginesCache.engine("test", "views/a");
+
+        assertThat(after).isInstanceOf(OtherEngine.class).isNotSameAs(before);
+        assertThat(after.templateDir()).isEqualTo("views/a");
+    }
+
+    @Test
+    void theEnginesForEveryDirKeepTheirInitParams() {
+        ViewEnginesCache.register("test", new TestEngine());
+        TestEngine before = (TestEngine) ViewEnginesCache.engine("test", "views/a");
+
+        entryApp().engine("test", "views/a", ".peb", Map.of("cacheSize", 10));
+        ViewEnginesCache.init("test", Map.of("strict", true));
+        assertThat(before.params).containsEntry("cacheSize", 10).containsEntry("strict", true);
+        assertThat(((TestEngine) ViewEnginesCache.engine("test", "views/b")).params)
+                .containsEntry("cacheSize", 10).containsEntry("strict", true);
+
+        ViewEnginesCache.replace("test", new OtherEngine());
+        assertThat(((TestEngine) ViewEnginesCache.engine("test", "views/a")).params).containsEntry("cacheSize", 10);
+    }
+
+    @Test
+    void precompilesEveryTemplateWithTheGivenExtension(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("layouts"));
+        Files.writeString(dir.resolve("index.peb"), "index");
+        Files.writeString(dir.resolve("layouts/base.peb"), "base");
+        Files.writeString(dir.resolve("notes.txt"), "not a template");
+        TestEngine engine = new TestEngine();
+
+        assertThat(TemplatesWarmUp.warmUp(engine, dir.toString(), ".peb")).isEqualTo(2);
+        assertThat(engine.compiled).containsExactlyInAnyOrder("index.peb", "layouts/base.peb");
+    }
+
+    @Test
+    void concurrentFirstRendersFromADirShareOneEngine() throws Exception {
+        ViewEnginesCache.register("test", new TestEngine());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<IViewEngine>> lookups = IntStream.range(0, 64)
+                    .<Callable<IViewEngine>>mapToObj(i -> () -> ViewEnginesCache.engine("test", "views/" + i % 2))
+                    .collect(Collectors.toList());
+            Set<IViewEngine> engines = ConcurrentHashMap.newKeySet();
+            for (Future<IViewEngine> engine : executor.invokeAll(lookups)) {
+                engines.add(engine.get());
+            }
+            assertThat(engines).hasSize(2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void aTemplateThatFailsToCompileDoesNotStopTheOthers(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("good.peb"), "good");
+        Files.writeString(dir.resolve("bad.peb"), "bad");
+        TestEngine engine = new TestEngine() {
+            @Override
+            public void precompile(String fileName) {
+                if (fileName.equals("bad.peb")) {
+                    throw new IllegalStateException("does not compile");
+                }
+                super.precompile(fileName);
+            }
+        };
+
+        assertThat(TemplatesWarmUp.warmUp(engine, dir.toString(), ".peb")).isEqualTo(1);
+        assertThat(engine.compiled).containsExactly("good.peb");
+        assertThat(TemplatesWarmUp.warmUp(engine, dir.resolve("missing").toString(), ".peb")).isZero();
+    }
+
+    @Test
+    void warmsUpTheViewsOfAppsWithViewSettingsOnly(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("index.peb"), "index");
+        ViewEnginesCache.register("test", new TestEngine());
+        Application app = entryApp();
+        app.engine("test", dir.toString(), ".peb");
+
+        app.warmUpViews();
+        new Application().warmUpViews(); // a sub-app, without settings of its own
+        assertThat(((TestEngine) ViewEnginesCache.engine("test", dir.toString())).compiled).containsExactly("index.peb");
+    }
+
+    static Application entryApp() {
+        return new Application() {
+
+            final AppSettings settings = new AppSettings();
+
+            @Override
+            public AppSettings getSettings() {
+                return settings; // as the entry app has
+            }
+        };
+    }
+
+    public static class TestEngine implements IViewEngine {
+
+        final Set<String> compiled = ConcurrentHashMap.newKeySet();
+        final Map<String, Object> params = new ConcurrentHashMap<>();
+        String templateDir;
+
+        @Override
+        public String name() {
+            return "test";
+        }
+
+        @Override
+        public void init(Map<String, Object> params) {
+            this.params.putAll(params);
+        }
+
+        @Override
+        public void templateDir(String dirName) {
+            this.templateDir = dirName;
+        }
+
+        @Override
+        public String templateDir() {
+            return this.templateDir;
+        }
+
+        @Override
+        public void precompile(String fileName) {
+            compiled.add(fileName);
+        }
+
+        @Override
+        public String mergeTemplate(String fileName, Map<String, Object> model) {
+            return fileName;
+        }
+
+        @Override
+        public String mergeContent(String content, Map<String, Object> model) {
+            return content;
+        }
+
+        @Override
+        public String render(AppSettings settings, String template, Map<String, Object> model) {
+            return template;
+        }
+    }
+
+    public static class OtherEngine extends TestEngine {
+    }
+}
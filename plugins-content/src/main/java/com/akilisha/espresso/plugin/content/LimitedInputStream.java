@@ -0,0 +1,78 @@
+package com.akilisha.espresso.plugin.content;
+
+import com.akilisha.espresso.api.request.IRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.eclipse.jetty.http.HttpHeader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class LimitedInputStream extends FilterInputStream {
+
+    final long limit;
+    long count;
+
+    public LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value > -1) {
+            this.count(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = super.read(bytes, offset, length);
+        if (read > 0) {
+            this.count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+        long skipped = super.skip(length);
+        this.count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws IOException {
+        this.count += read;
+        if (this.count > this.limit) {
+            throw new IOException(String.format("The request body is larger than the %d bytes allowed", this.limit));
+        }
+    }
+
+    public static void checkContentLength(IRequest request, long limit) throws IOException {
+        //the raw header, since 'IRequest.get' stands in a placeholder for a missing one
+        checkContentLength(request.rawRequest(HttpServletRequest.class).getHeader(HttpHeader.CONTENT_LENGTH.asString()), limit);
+    }
+
+    public static void checkContentLength(String contentLength, long limit) throws IOException {
+        //reject early when the client declares a size over the limit, before reading anything at all
+        if (contentLength == null || contentLength.isBlank()) {
+            return;
+        }
+        long length;
+        try {
+            length = Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("'%s' is not a valid content length", contentLength));
+        }
+        if (length > limit) {
+            throw new IOException(String.format("The request body is larger than the %d bytes allowed", limit));
+        }
+    }
+}
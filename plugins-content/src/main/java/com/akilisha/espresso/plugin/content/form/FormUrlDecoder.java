@@ -0,0 +1,85 @@
+package com.akilisha.espresso.plugin.content.form;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FormUrlDecoder {
+
+    final int maxFields;
+    final int maxKeyLength;
+
+    public FormUrlDecoder(int maxFields, int maxKeyLength) {
+        this.maxFields = maxFields;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    // decodes the body in a single pass over its bytes. The decoded bytes are written back into the same array, which is
+    // safe since decoding never makes anything longer, so the only allocations are the keys and values themselves
+    public Map<String, List<String>> decode(byte[] bytes, int length) throws IOException {
+        Map<String, List<String>> fields = new LinkedHashMap<>();
+        int fieldCount = 0;
+        int read = 0;
+        while (read < length) {
+            int keyStart = read;
+            int write = read;
+            int keyEnd = -1;
+            for (; read < length && bytes[read] != '&'; read++) {
+                byte b = bytes[read];
+                if (b == '=' && keyEnd < 0) {
+                    keyEnd = write;
+                } else if (b == '+') {
+                    bytes[write++] = ' ';
+                } else if (b == '%') {
+                    if (read + 2 >= length) {
+                        throw new IOException(String.format("Incomplete percent-encoding at offset %d of the form body", read));
+                    }
+                    int high = Character.digit(bytes[read + 1], 16);
+                    int low = Character.digit(bytes[read + 2], 16);
+                    if (high < 0 || low < 0) {
+                        throw new IOException(String.format("Invalid percent-encoding at offset %d of the form body", read));
+                    }
+                    bytes[write++] = (byte) ((high << 4) + low);
+                    read += 2;
+                } else {
+                    bytes[write++] = b;
+                }
+            }
+            read++; // past the '&'
+            if (write == keyStart && keyEnd < 0) {
+                continue; // an empty pair, as in 'a=1&&b=2'
+            }
+            if (keyEnd < 0) {
+                keyEnd = write; // a key without any '=' has an empty value
+            }
+            if (keyEnd - keyStart > maxKeyLength) {
+                throw new IOException(String.format("A form field name is longer than the %d bytes allowed", maxKeyLength));
+            }
+            if (++fieldCount > maxFields) {
+                throw new IOException(String.format("The form has more than the %d fields allowed", maxFields));
+            }
+            String key = new String(bytes, keyStart, keyEnd - keyStart, StandardCharsets.UTF_8);
+            String value = new String(bytes, keyEnd, write - keyEnd, StandardCharsets.UTF_8);
+            add(fields, key, value);
+        }
+        return fields;
+    }
+
+    // most fields have a single value, so a list only grows past a singleton for the ones that repeat
+    private static void add(Map<String, List<String>> fields, String key, String value) {
+        List<String> values = fields.get(key);
+        if (values == null) {
+            fields.put(key, Collections.singletonList(value));
+        } else {
+            if (values.size() == 1 && !(values instanceof ArrayList)) {
+                values = new ArrayList<>(values);
+                fields.put(key, values);
+            }
+            values.add(value);
+        }
+    }
+}
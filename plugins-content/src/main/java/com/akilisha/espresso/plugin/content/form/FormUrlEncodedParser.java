@@ -1,22 +1,35 @@
 package com.akilisha.espresso.plugin.content.form;
 
+import com.akilisha.espresso.api.application.StartupEnv;
 import com.akilisha.espresso.api.content.IBodyParser;
 import com.akilisha.espresso.api.request.IRequest;
+import com.akilisha.espresso.plugin.content.LimitedInputStream;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.HttpHeader;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static com.akilisha.espresso.api.content.IContentType.FORM_URL_ENCODED;
 
 @Slf4j
 public class FormUrlEncodedParser implements IBodyParser {
 
+    private long maxBodySize = (long) StartupEnv.FORM_MAX_BODY_SIZE.value;
+    private FormUrlDecoder decoder = new FormUrlDecoder((int) StartupEnv.FORM_MAX_FIELDS.value, (int) StartupEnv.FORM_MAX_KEY_LENGTH.value);
+
     @Override
     public void init(Map<String, Object> params) {
-        log.info("Initializing {}".getClass().getName());
+        log.info("Initializing {}", getClass().getName());
+        //any kind of number will do for the limits, as an int and a long are as likely to be given
+        this.maxBodySize = ((Number) params.getOrDefault(StartupEnv.FORM_MAX_BODY_SIZE.property, maxBodySize)).longValue();
+        this.decoder = new FormUrlDecoder(
+                ((Number) params.getOrDefault(StartupEnv.FORM_MAX_FIELDS.property, decoder.maxFields)).intValue(),
+                ((Number) params.getOrDefault(StartupEnv.FORM_MAX_KEY_LENGTH.property, decoder.maxKeyLength)).intValue());
     }
 
     @Override
@@ -26,16 +39,26 @@ public class FormUrlEncodedParser implements IBodyParser {
 
     @Override
     public Object read(IRequest request) throws IOException {
-        byte[] bytes = request.readSync();
-        return Arrays.stream(new String(bytes).split("&"))
-                .map(arr -> {
-                    String[] split = arr.split("=");
-                    if (split.length > 2) throw new RuntimeException("malformed url encoded data");
-                    return split;
-                })
-                .collect(Collectors.toMap(data -> data[0], data2 -> Arrays.stream(data2.length < 2 ? new String[]{} : data2[1].split(",")).collect(Collectors.toList()), (existing, similar) -> {
-                    existing.addAll(similar);
-                    return existing;
-                }));
+        LimitedInputStream.checkContentLength(request, maxBodySize);
+        try (InputStream in = new LimitedInputStream(request.inputStream(), maxBodySize)) {
+            byte[] bytes = in.readAllBytes();
+            return decoder.decode(bytes, bytes.length);
+        }
+    }
+
+    @Override
+    public CompletionStage<Object> readAsync(IRequest request) {
+        try {
+            LimitedInputStream.checkContentLength(request, maxBodySize);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return request.readAsync(maxBodySize).thenApply(bytes -> {
+            try {
+                return decoder.decode(bytes, bytes.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 }
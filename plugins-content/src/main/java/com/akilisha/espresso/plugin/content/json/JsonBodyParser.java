@@ -1,28 +1,44 @@
 package com.akilisha.espresso.plugin.content.json;
 
-import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.application.StartupEnv;
+import com.akilisha.espresso.api.content.IJsonBodyParser;
+import com.akilisha.espresso.api.content.IJsonTokenListener;
+import com.akilisha.espresso.api.content.JsonToken;
 import com.akilisha.espresso.api.request.IRequest;
 import com.akilisha.espresso.api.response.IResponse;
+import com.akilisha.espresso.plugin.content.LimitedInputStream;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.spi.json.JsonProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jetty.http.HttpHeader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
 
 import static com.akilisha.espresso.api.content.IContentType.APPLICATION_JSON;
 
 @Slf4j
-public class JsonBodyParser implements IBodyParser {
+public class JsonBodyParser implements IJsonBodyParser {
 
-    private JsonProvider provider;
+    private Configuration configuration = Configuration.defaultConfiguration();
+    private JsonProvider provider = configuration.jsonProvider();
+    private long maxBodySize = (long) StartupEnv.JSON_MAX_BODY_SIZE.value;
 
     @Override
     public void init(Map<String, Object> params) {
-        log.info("Initializing {}".getClass().getName());
-        this.provider = Configuration.defaultConfiguration().jsonProvider();
+        log.info("Initializing {}", getClass().getName());
+        this.configuration = Configuration.defaultConfiguration();
+        this.provider = this.configuration.jsonProvider();
+        //any kind of number will do, as a limit given in code is as likely to be an int as a long
+        this.maxBodySize = ((Number) params.getOrDefault(StartupEnv.JSON_MAX_BODY_SIZE.property, maxBodySize)).longValue();
     }
 
     @Override
@@ -32,8 +48,58 @@ public class JsonBodyParser implements IBodyParser {
 
     @Override
     public Object read(IRequest request) throws IOException {
-        byte[] bytes = request.readSync();
-        return provider.parse(bytes);
+        //decode straight from the request stream, instead of buffering the whole body up front
+        try (InputStream in = inputStream(request)) {
+            return provider.parse(in, StandardCharsets.UTF_8.name());
+        }
+    }
+
+    @Override
+    public CompletionStage<Object> readAsync(IRequest request) {
+        try {
+            LimitedInputStream.checkContentLength(request, maxBodySize);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return request.readAsync(maxBodySize)
+                .thenApply(bytes -> provider.parse(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8.name()));
+    }
+
+    @Override
+    public void read(IRequest request, IJsonTokenListener listener) throws IOException {
+        try (InputStream in = inputStream(request)) {
+            JsonTokenizer tokenizer = new JsonTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8));
+            JsonToken token;
+            while ((token = tokenizer.next()) != null) {
+                listener.onToken(token, tokenizer.value());
+            }
+        }
+    }
+
+    @Override
+    public <T> void readArray(IRequest request, Class<T> type, Consumer<T> consumer) throws IOException {
+        try (InputStream in = inputStream(request)) {
+            JsonTokenizer tokenizer = new JsonTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8));
+            if (tokenizer.next() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected the JSON body to be an array");
+            }
+            JsonToken token;
+            while ((token = tokenizer.next()) != JsonToken.END_ARRAY) {
+                //only the current element is held in memory while it is bound and handed over
+                Object element = tokenizer.readValue(token);
+                consumer.accept(element == null ? null : configuration.mappingProvider().map(element, type, configuration));
+            }
+        }
+    }
+
+    private InputStream inputStream(IRequest request) throws IOException {
+        LimitedInputStream.checkContentLength(request, maxBodySize);
+        return new LimitedInputStream(request.inputStream(), maxBodySize);
+    }
+
+    @Override
+    public boolean writes() {
+        return true;
     }
 
     @Override
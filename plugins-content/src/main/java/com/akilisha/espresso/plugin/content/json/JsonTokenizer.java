@@ -0,0 +1,318 @@
+package com.akilisha.espresso.plugin.content.json;
+
+import com.akilisha.espresso.api.content.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class JsonTokenizer {
+
+    static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+    //what the next token may be, given the container it is in
+    static final int VALUE = 0;
+    static final int FIRST_VALUE = 1;
+    static final int FIRST_NAME = 2;
+    static final int NAME = 3;
+    static final int SEPARATOR = 4;
+    //as deep as StreamingJsonCodec writes. readValue recurses once per level, so anything deeper is refused up front
+    static final int MAX_DEPTH = StreamingJsonCodec.MAX_DEPTH;
+
+    final Reader reader;
+    final char[] buffer = new char[8192];
+    final StringBuilder text = new StringBuilder();
+    int position;
+    int limit;
+    long offset;
+    String value;
+    char[] containers = new char[16];
+    int depth;
+    int expected = VALUE;
+
+    public JsonTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    public String value() {
+        return this.value;
+    }
+
+    // the next token, or null at the end of the input. Which tokens may come next is tracked per container, so a
+    // missing or misplaced ',' or ':' is an error. A string followed by a ':' is reported as a field name
+    public JsonToken next() throws IOException {
+        this.value = null;
+        int ch = skipWhitespace();
+        if (this.expected == SEPARATOR) {
+            if (this.depth == 0) {
+                if (ch == -1) {
+                    return null;
+                }
+                throw error(String.format("Unexpected character '%c' after the end of the JSON value", (char) ch));
+            }
+            char closing = this.containers[this.depth - 1] == '{' ? '}' : ']';
+            if (ch == closing) {
+                return close();
+            }
+            if (ch != ',') {
+                throw error(ch == -1 ? "Unexpected end of input" : String.format("Expected ',' or '%c'", closing));
+            }
+            this.expected = closing == '}' ? NAME : VALUE;
+            ch = skipWhitespace();
+        }
+        if (ch == -1) {
+            if (this.depth == 0 && this.expected == VALUE) {
+                return null;
+            }
+            throw error("Unexpected end of input");
+        }
+        if ((this.expected == FIRST_NAME && ch == '}') || (this.expected == FIRST_VALUE && ch == ']')) {
+            return close();
+        }
+        if (this.expected == FIRST_NAME || this.expected == NAME) {
+            if (ch != '"') {
+                throw error("Expected a field name");
+            }
+            this.value = readString();
+            if (peek() != ':') {
+                throw error("Expected ':' after the field name");
+            }
+            this.position++;
+            this.expected = VALUE;
+            return JsonToken.FIELD_NAME;
+        }
+        this.expected = SEPARATOR;
+        switch (ch) {
+            case '{':
+                open('{');
+                this.expected = FIRST_NAME;
+                return JsonToken.START_OBJECT;
+            case '[':
+                open('[');
+                this.expected = FIRST_VALUE;
+                return JsonToken.START_ARRAY;
+            case '"':
+                this.value = readString();
+                return JsonToken.STRING;
+            case 't':
+                expect("rue");
+                return JsonToken.TRUE;
+            case 'f':
+                expect("alse");
+                return JsonToken.FALSE;
+            case 'n':
+                expect("ull");
+                return JsonToken.NULL;
+            default:
+                if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                    this.value = readNumber((char) ch);
+                    return JsonToken.NUMBER;
+                }
+                throw error(String.format("Unexpected character '%c'", (char) ch));
+        }
+    }
+
+    // the complete value that starts with the given token, so that only one array element at a time is held in memory
+    public Object readValue(JsonToken token) throws IOException {
+        if (token == null) {
+            throw error("Unexpected end of input");
+        }
+        switch (token) {
+            case START_OBJECT: {
+                Map<String, Object> object = new LinkedHashMap<>();
+                JsonToken next;
+                while ((next = next()) != JsonToken.END_OBJECT) {
+                    if (next != JsonToken.FIELD_NAME) {
+                        throw error(next == null ? "Unexpected end of input" : "Expected a field name");
+                    }
+                    String name = this.value;
+                    object.put(name, readValue(next()));
+                }
+                return object;
+            }
+            case START_ARRAY: {
+                List<Object> array = new ArrayList<>();
+                JsonToken next;
+                while ((next = next()) != JsonToken.END_ARRAY) {
+                    array.add(readValue(next));
+                }
+                return array;
+            }
+            case STRING:
+                return this.value;
+            case NUMBER:
+                return toNumber(this.value);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case NULL:
+                return null;
+            default:
+                throw error(String.format("Unexpected token %s", token));
+        }
+    }
+
+    private Number toNumber(String number) throws IOException {
+        try {
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                long value;
+                try {
+                    value = Long.parseLong(number);
+                } catch (NumberFormatException e) {
+                    return new BigInteger(number); //the syntax was checked as it was read, so it is only too big for a long
+                }
+                return value == (int) value ? (Number) (int) value : (Number) value;
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error(String.format("Invalid number '%s'", number));
+        }
+    }
+
+    private void open(char container) throws IOException {
+        if (this.depth == MAX_DEPTH) {
+            throw error(String.format("Nesting deeper than %d levels", MAX_DEPTH));
+        }
+        if (this.depth == this.containers.length) {
+            this.containers = Arrays.copyOf(this.containers, this.depth * 2);
+        }
+        this.containers[this.depth++] = container;
+    }
+
+    private JsonToken close() {
+        this.expected = SEPARATOR;
+        return this.containers[--this.depth] == '{' ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+    }
+
+    private boolean fill() throws IOException {
+        if (this.position < this.limit) {
+            return true;
+        }
+        this.offset += this.limit;
+        this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+        this.position = 0;
+        if (this.limit < 0) {
+            this.limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        return fill() ? this.buffer[this.position++] : -1;
+    }
+
+    private int peek() throws IOException {
+        while (fill()) {
+            char ch = this.buffer[this.position];
+            if (!Character.isWhitespace(ch)) {
+                return ch;
+            }
+            this.position++;
+        }
+        return -1;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int ch;
+        while ((ch = read()) > -1) {
+            if (!Character.isWhitespace(ch)) {
+                return ch;
+            }
+        }
+        return -1;
+    }
+
+    private void expect(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        this.text.setLength(0);
+        while (true) {
+            //copy unescaped runs straight out of the buffer
+            if (!fill()) {
+                throw error("Unterminated string");
+            }
+            int start = this.position;
+            while (this.position < this.limit && this.buffer[this.position] != '"' && this.buffer[this.position] != '\\') {
+                this.position++;
+            }
+            this.text.append(this.buffer, start, this.position - start);
+            if (this.position == this.limit) {
+                continue;
+            }
+            if (this.buffer[this.position++] == '"') {
+                return this.text.toString();
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    this.text.append((char) escaped);
+                    break;
+                case 'b':
+                    this.text.append('\b');
+                    break;
+                case 'f':
+                    this.text.append('\f');
+                    break;
+                case 'n':
+                    this.text.append('\n');
+                    break;
+                case 'r':
+                    this.text.append('\r');
+                    break;
+                case 't':
+                    this.text.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        code = (code << 4) + digit;
+                    }
+                    this.text.append((char) code);
+                    break;
+                default:
+                    throw error("Invalid escape sequence");
+            }
+        }
+    }
+
+    private String readNumber(char first) throws IOException {
+        this.text.setLength(0);
+        this.text.append(first);
+        while (fill()) {
+            char ch = this.buffer[this.position];
+            if ((ch >= '0' && ch <= '9') || ch == '.' || ch == 'e' || ch == 'E' || ch == '+' || ch == '-') {
+                this.text.append(ch);
+                this.position++;
+            } else {
+                break;
+            }
+        }
+        if (!NUMBER.matcher(this.text).matches()) {
+            throw error(String.format("Invalid number '%s'", this.text));
+        }
+        return this.text.toString();
+    }
+
+    private IOException error(String message) {
+        return new IOException(String.format("%s at offset %d of the JSON input", message, this.offset + this.position));
+    }
+}
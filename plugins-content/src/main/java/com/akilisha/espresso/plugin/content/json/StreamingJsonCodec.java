@@ -0,0 +1,389 @@
+package com.akilisha.espresso.plugin.content.json;
+
+import com.akilisha.espresso.api.content.IJsonCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+public class StreamingJsonCodec implements IJsonCodec {
+
+    static final byte[] HEX = "0123456789abcdef".getBytes();
+    static final int BUFFER_SIZE = 8192;
+    static final int MAX_DEPTH = 512;
+
+    // one buffer per thread, taken up again by every write on it. A virtual thread only ever serves the one request, and
+    // so ends up with a buffer of its own
+    final ThreadLocal<Output> outputs = ThreadLocal.withInitial(() -> new Output(new byte[BUFFER_SIZE]));
+
+    // resolved once per class. Unlike a map keyed by class, this does not keep classes from other loaders alive
+    final ClassValue<Serializer> serializers = new ClassValue<>() {
+        @Override
+        protected Serializer computeValue(Class<?> type) {
+            return serializer(type);
+        }
+    };
+
+    @Override
+    public void init(Map<String, Object> params) {
+        log.info("Initializing {}", getClass().getName());
+    }
+
+    @Override
+    public void write(Object value, OutputStream out) throws IOException {
+        Output output = outputs.get();
+        if (output.out != null) {
+            output = new Output(new byte[BUFFER_SIZE]); // written to from within a write, such as by a getter
+        }
+        output.out = out;
+        try {
+            writeValue(value, output);
+            output.flush();
+        } finally {
+            output.reset();
+        }
+    }
+
+    void writeValue(Object value, Output output) throws IOException {
+        if (value == null) {
+            output.writeAscii("null");
+            return;
+        }
+        //a value that refers back to itself would otherwise only end in a StackOverflowError
+        if (++output.depth > MAX_DEPTH) {
+            throw new IOException(String.format("The value is nested more than %d levels deep, which usually means that " +
+                    "it refers back to itself through %s", MAX_DEPTH, value.getClass().getName()));
+        }
+        try {
+            serializers.get(value.getClass()).write(value, output);
+        } finally {
+            output.depth--;
+        }
+    }
+
+    Serializer serializer(Class<?> type) {
+        // resolved once per class, so that reflection is only ever done the first time a type is written
+        if (CharSequence.class.isAssignableFrom(type) || type == Character.class) {
+            return (value, output) -> output.writeString(value.toString());
+        }
+        if (type == Boolean.class) {
+            return (value, output) -> output.writeAscii(value.toString());
+        }
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return (value, output) -> output.writeLong(((Number) value).longValue());
+        }
+        if (type == Double.class || type == Float.class) {
+            return (value, output) -> {
+                double number = ((Number) value).doubleValue();
+                output.writeAscii(Double.isFinite(number) ? value.toString() : "null");
+            };
+        }
+        if (Number.class.isAssignableFrom(type)) {
+            return (value, output) -> output.writeAscii(value.toString());
+        }
+        if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) {
+            return (value, output) -> output.writeString(((Enum<?>) value).name());
+        }
+        // a path is an Iterable of its own names, each a path again, so it has to be caught ahead of the containers. Its
+        // implementations live outside 'java.', which leaves it short of the fallback at the end as well
+        if (Path.class.isAssignableFrom(type)) {
+            return (value, output) -> output.writeString(value.toString());
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return (value, output) -> {
+                output.write('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    if (!first) {
+                        output.write(',');
+                    }
+                    first = false;
+                    output.writeString(String.valueOf(entry.getKey()));
+                    output.write(':');
+                    writeValue(entry.getValue(), output);
+                }
+                output.write('}');
+            };
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            return (value, output) -> {
+                output.write('[');
+                boolean first = true;
+                for (Object item : (Iterable<?>) value) {
+                    if (!first) {
+                        output.write(',');
+                    }
+                    first = false;
+                    writeValue(item, output);
+                }
+                output.write(']');
+            };
+        }
+        if (type.isArray()) {
+            return (value, output) -> {
+                output.write('[');
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    if (i > 0) {
+                        output.write(',');
+                    }
+                    writeValue(Array.get(value, i), output);
+                }
+                output.write(']');
+            };
+        }
+        if (type.isRecord()) {
+            RecordComponent[] components = type.getRecordComponents();
+            String[] names = new String[components.length];
+            Method[] accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = components[i].getName();
+                accessors[i] = components[i].getAccessor();
+                accessors[i].setAccessible(true);
+            }
+            return object(names, accessors);
+        }
+        // holders write what they hold, rather than what their toString() says
+        if (type == Optional.class) {
+            return (value, output) -> writeValue(((Optional<?>) value).orElse(null), output);
+        }
+        if (type == OptionalInt.class) {
+            return (value, output) -> writeValue(((OptionalInt) value).isPresent() ? ((OptionalInt) value).getAsInt() : null, output);
+        }
+        if (type == OptionalLong.class) {
+            return (value, output) -> writeValue(((OptionalLong) value).isPresent() ? ((OptionalLong) value).getAsLong() : null, output);
+        }
+        if (type == OptionalDouble.class) {
+            return (value, output) -> writeValue(((OptionalDouble) value).isPresent() ? ((OptionalDouble) value).getAsDouble() : null, output);
+        }
+        if (type == AtomicBoolean.class) {
+            return (value, output) -> output.writeAscii(Boolean.toString(((AtomicBoolean) value).get()));
+        }
+        if (type == AtomicReference.class) {
+            return (value, output) -> writeValue(((AtomicReference<?>) value).get(), output);
+        }
+        if (Date.class.isAssignableFrom(type) && type.getName().startsWith("java.util.")) {
+            return (value, output) -> output.writeString(((Date) value).toInstant().toString());
+        }
+        if (type.getName().startsWith("java.")) {
+            return (value, output) -> output.writeString(value.toString()); // dates, uuids and the like
+        }
+        return bean(type);
+    }
+
+    Serializer bean(Class<?> type) {
+        Map<String, Method> getters = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())
+                    || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            String name = method.getName();
+            if (name.startsWith("get") && name.length() > 3 && method.getReturnType() != void.class) {
+                getters.put(Character.toLowerCase(name.charAt(3)) + name.substring(4), method);
+            } else if (name.startsWith("is") && name.length() > 2 && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+                getters.putIfAbsent(Character.toLowerCase(name.charAt(2)) + name.substring(3), method);
+            }
+        }
+        getters.values().forEach(Method::trySetAccessible); // public getters may still be declared in a non-public class
+
+        // getMethods() comes in no particular order, so properties follow the fields they are declared with, from the
+        // topmost superclass down, and any others come last by name
+        Map<String, Method> ordered = new LinkedHashMap<>();
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.push(current);
+        }
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                Method getter = getters.get(field.getName());
+                if (getter != null && !Modifier.isStatic(field.getModifiers())) {
+                    ordered.putIfAbsent(field.getName(), getter);
+                }
+            }
+        }
+        new TreeMap<>(getters).forEach(ordered::putIfAbsent);
+        return object(ordered.keySet().toArray(String[]::new), ordered.values().toArray(Method[]::new));
+    }
+
+    Serializer object(String[] names, Method[] accessors) {
+        // property names are escaped and encoded once here, instead of every time an instance is written
+        byte[][] keys = new byte[names.length][];
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        Output key = new Output(new byte[BUFFER_SIZE]);
+        key.out = encoded;
+        for (int i = 0; i < names.length; i++) {
+            encoded.reset();
+            try {
+                key.writeString(names[i]);
+                key.write(':');
+                key.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            keys[i] = encoded.toByteArray();
+        }
+        return (value, output) -> {
+            output.write('{');
+            for (int i = 0; i < accessors.length; i++) {
+                if (i > 0) {
+                    output.write(',');
+                }
+                output.write(keys[i], 0, keys[i].length);
+                try {
+                    writeValue(accessors[i].invoke(value), output);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IOException(String.format("Could not read '%s' from %s", names[i], value.getClass().getName()), e);
+                }
+            }
+            output.write('}');
+        };
+    }
+
+    @FunctionalInterface
+    interface Serializer {
+
+        void write(Object value, Output output) throws IOException;
+    }
+
+    static class Output {
+
+        final byte[] buffer;
+        OutputStream out;
+        int count;
+        int depth;
+
+        Output(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        void flush() throws IOException {
+            if (count > 0 && out != null) {
+                out.write(buffer, 0, count);
+            }
+            count = 0;
+        }
+
+        // lets go of the stream, and of whatever a failed write left behind, before the buffer is used again
+        void reset() {
+            out = null;
+            count = 0;
+            depth = 0;
+        }
+
+        void ensure(int length) throws IOException {
+            if (count + length > buffer.length) {
+                flush();
+            }
+        }
+
+        void write(int b) throws IOException {
+            ensure(1);
+            buffer[count++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length) {
+                flush();
+                out.write(bytes, offset, length);
+                return;
+            }
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        void writeAscii(String text) throws IOException {
+            int length = text.length();
+            for (int start = 0; start < length; ) {
+                ensure(1);
+                int end = Math.min(length, start + buffer.length - count);
+                for (int i = start; i < end; i++) {
+                    buffer[count++] = (byte) text.charAt(i);
+                }
+                start = end;
+            }
+        }
+
+        void writeLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            ensure(20);
+            if (value < 0) {
+                buffer[count++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = count + digits - 1; i >= count; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            count += digits;
+        }
+
+        void writeString(String text) throws IOException {
+            write('"');
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char ch = text.charAt(i);
+                ensure(6); // the longest a single char can get, as a \\u escape or a 4-byte surrogate pair
+                if (ch < 0x80) {
+                    if (ch == '"' || ch == '\\') {
+                        buffer[count++] = '\\';
+                        buffer[count++] = (byte) ch;
+                    } else if (ch < 0x20) {
+                        buffer[count++] = '\\';
+                        switch (ch) {
+                            case '\n':
+                                buffer[count++] = 'n';
+                                break;
+                            case '\r':
+                                buffer[count++] = 'r';
+                                break;
+                            case '\t':
+                                buffer[count++] = 't';
+                                break;
+                            default:
+                                buffer[count++] = 'u';
+                                buffer[count++] = '0';
+                                buffer[count++] = '0';
+                                buffer[count++] = HEX[ch >> 4];
+                                buffer[count++] = HEX[ch & 0xF];
+                        }
+                    } else {
+                        buffer[count++] = (byte) ch;
+                    }
+                } else if (ch < 0x800) {
+                    buffer[count++] = (byte) (0xC0 | (ch >> 6));
+                    buffer[count++] = (byte) (0x80 | (ch & 0x3F));
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int code = Character.toCodePoint(ch, text.charAt(++i));
+                    buffer[count++] = (byte) (0xF0 | (code >> 18));
+                    buffer[count++] = (byte) (0x80 | ((code >> 12) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | ((code >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (code & 0x3F));
+                } else if (Character.isSurrogate(ch)) {
+                    buffer[count++] = '?'; // an unpaired surrogate cannot be encoded
+                } else {
+                    buffer[count++] = (byte) (0xE0 | (ch >> 12));
+                    buffer[count++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (ch & 0x3F));
+                }
+            }
+            write('"');
+        }
+    }
+}
@@ -1,37 +1,44 @@
 package com.akilisha.espresso.plugin.content.multipart;
 
 import com.akilisha.espresso.api.application.StartupEnv;
-import com.akilisha.espresso.api.content.IBodyParser;
+import com.akilisha.espresso.api.content.IMultipartBodyParser;
+import com.akilisha.espresso.api.content.IPart;
+import com.akilisha.espresso.api.content.MediaType;
 import com.akilisha.espresso.api.request.IRequest;
-import jakarta.servlet.MultipartConfigElement;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.Part;
+import com.akilisha.espresso.plugin.content.LimitedInputStream;
 import lombok.extern.slf4j.Slf4j;
-import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.http.HttpHeader;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static com.akilisha.espresso.api.content.IContentType.MULTIPART_FORM_DATA;
 
 @Slf4j
-public class MultipartFormDataParser implements IBodyParser {
+public class MultipartFormDataParser implements IMultipartBodyParser {
     String location = System.getProperty("java.io.tmpdir");
     long maxFileSize = 1_000_000L;
     long maxRequestSize = 10_000_000L;
     int fileSizeThreshold = 0;
-    private MultipartConfigElement multiPartConfig;
 
     @Override
     public void init(Map<String, Object> params) {
-        log.info("Initializing {}".getClass().getName());
-        this.multiPartConfig = new MultipartConfigElement(
-                (String) params.getOrDefault(StartupEnv.MULTIPART_LOCATION.property, location),
-                (Long) params.getOrDefault(StartupEnv.MULTIPART_MAX_FILE_SIZE.property, maxFileSize),
-                (Long) params.getOrDefault(StartupEnv.MULTIPART_MAX_REQ_SIZE.property, maxRequestSize),
-                (int) params.getOrDefault(StartupEnv.MULTIPART_FILE_THRESHOLD.property, fileSizeThreshold));
+        log.info("Initializing {}", getClass().getName());
+        this.location = (String) params.getOrDefault(StartupEnv.MULTIPART_LOCATION.property, location);
+        this.maxFileSize = (Long) params.getOrDefault(StartupEnv.MULTIPART_MAX_FILE_SIZE.property, maxFileSize);
+        this.maxRequestSize = (Long) params.getOrDefault(StartupEnv.MULTIPART_MAX_REQ_SIZE.property, maxRequestSize);
+        this.fileSizeThreshold = (int) params.getOrDefault(StartupEnv.MULTIPART_FILE_THRESHOLD.property, fileSizeThreshold);
     }
 
     @Override
@@ -41,53 +48,156 @@ public class MultipartFormDataParser implements IBodyParser {
 
     @Override
     public Object read(IRequest request) throws IOException {
-        Map<String, Object> content = new HashMap<>();
-        request.setAttr(Request.__MULTIPART_CONFIG_ELEMENT, multiPartConfig);
-
         // creates the save directory if it does not exist
-        File fileSaveDir = new File(multiPartConfig.getLocation());
-        assert fileSaveDir.exists() || fileSaveDir.mkdirs();
-        // make sure the file is writable
-        assert fileSaveDir.setWritable(true);
+        Path saveDir = Files.createDirectories(Path.of(location));
+        return save(parts(request), saveDir);
+    }
 
-        String fileName;
+    @Override
+    public CompletionStage<Object> readAsync(IRequest request) {
+        // the body is spooled to a file in the upload folder as it arrives, without holding on to a thread, and is only
+        // split into its parts once all of it is in. Those are then read off the local disk, instead of off the client
+        String boundary;
+        Path saveDir;
+        Path spool;
+        FileChannel channel;
         try {
-            for (Part part : request.rawRequest(Request.class).getParts()) {
-                if (part.getContentType() != null) {
-                    fileName = getFileName(part);
-                    String savePath = fileSaveDir.getAbsolutePath() + File.separator + fileName;
-                    part.write(savePath); // A convenience method to write this uploaded item to disk.
-                    content.put(part.getName(), savePath);
+            LimitedInputStream.checkContentLength(request, maxRequestSize);
+            boundary = boundary(request);
+            saveDir = Files.createDirectories(Path.of(location));
+            spool = Files.createTempFile(saveDir, "multipart-", ".body");
+            channel = FileChannel.open(spool, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Object> content = new CompletableFuture<>();
+        long[] size = new long[1];
+        request.readAsync(chunk -> {
+            size[0] += chunk.remaining();
+            if (size[0] > maxRequestSize) {
+                throw new UncheckedIOException(new IOException(String.format("The request body is larger than the %d bytes allowed", maxRequestSize)));
+            }
+            try {
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, () -> {
+            try {
+                channel.close();
+                try (InputStream in = Files.newInputStream(spool)) {
+                    content.complete(save(parts(in, boundary), saveDir));
+                }
+            } catch (IOException | RuntimeException e) {
+                content.completeExceptionally(e);
+            } finally {
+                discard(spool);
+            }
+        }, error -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                error.addSuppressed(e);
+            }
+            discard(spool);
+            content.completeExceptionally(error instanceof UncheckedIOException unchecked ? unchecked.getCause() : error);
+        });
+        return content;
+    }
+
+    Map<String, Object> save(Iterator<IPart> parts, Path saveDir) throws IOException {
+        Map<String, Object> content = new HashMap<>();
+        try {
+            while (parts.hasNext()) {
+                IPart part = parts.next();
+                if (part.fileName() != null && part.fileName().isEmpty()) {
+                    continue; // a file input left empty
+                }
+                if (part.fileName() != null) {
+                    // files go straight from the request stream to disk, instead of being buffered as a part first
+                    Path savePath = part.saveTo(saveDir.resolve(safeFileName(part.fileName())));
+                    content.put(part.name(), savePath.toString());
                 } else {
-                    content.put(part.getName(), stringReader(part.getInputStream()));
+                    content.put(part.name(), part.text());
                 }
             }
-        } catch (ServletException e) {
-            throw new IOException(e);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
         return content;
     }
 
-    private String getFileName(Part part) {
-        String contentDisposition = part.getHeader("content-disposition");
-        System.out.println("content-disposition header= " + contentDisposition);
-        String[] tokens = contentDisposition.split(";");
-        for (String token : tokens) {
-            if (token.trim().startsWith("filename")) {
-                return token.substring(token.indexOf("=") + 2, token.length() - 1);
-            }
+    @Override
+    public Iterator<IPart> parts(IRequest request) throws IOException {
+        LimitedInputStream.checkContentLength(request, maxRequestSize);
+        return parts(request.inputStream(), boundary(request));
+    }
+
+    static String boundary(IRequest request) throws IOException {
+        String contentType = request.get(HttpHeader.CONTENT_TYPE.asString());
+        String boundary = MediaType.parse(contentType).params().get("boundary");
+        if (boundary == null || boundary.isEmpty()) {
+            throw new IOException(String.format("There is no multipart boundary in the content type '%s'", contentType));
         }
-        return "";
+        return boundary;
     }
 
-    private String stringReader(InputStream stream) throws IOException {
-        StringBuilder textBuilder = new StringBuilder();
-        try (Reader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
-            int c;
-            while ((c = reader.read()) != -1) {
-                textBuilder.append((char) c);
+    Iterator<IPart> parts(InputStream in, String boundary) {
+        MultipartReader reader = new MultipartReader(new LimitedInputStream(in, maxRequestSize), boundary);
+        return new Iterator<>() {
+
+            StreamingPart current;
+            StreamingPart next;
+            boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    if (current != null) {
+                        current.stale = true;
+                    }
+                    try {
+                        Map<String, String> headers = reader.nextPart();
+                        if (headers == null) {
+                            done = true;
+                        } else {
+                            next = new StreamingPart(reader, headers, maxFileSize);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public IPart next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                current = next;
+                next = null;
+                return current;
             }
+        };
+    }
+
+    static void discard(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Could not delete the spooled multipart body {}", spool, e);
+        }
+    }
+
+    // only the name itself is kept, so that a file name like '../../x' cannot be saved outside the upload folder
+    static String safeFileName(String fileName) throws IOException {
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        if (name.isBlank() || name.equals(".") || name.equals("..")) {
+            throw new IOException(String.format("'%s' is not a valid upload file name", fileName));
         }
-        return textBuilder.toString();
+        return name;
     }
 }
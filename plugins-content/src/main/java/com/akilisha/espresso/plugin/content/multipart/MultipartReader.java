@@ -0,0 +1,156 @@
+package com.akilisha.espresso.plugin.content.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// scans a multipart body for its boundaries straight off the stream, so that no part is ever held in memory whole
+public class MultipartReader {
+
+    static final int BUFFER_SIZE = 16384;
+    static final int MAX_HEADERS_SIZE = 8192;
+
+    final InputStream in;
+    final byte[] delimiter;
+    final int[] skips = new int[256];
+    final byte[] buffer;
+    int position;
+    int limit;
+    boolean eof;
+    boolean partDone;
+    boolean closed;
+
+    public MultipartReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // the first boundary has no line break in front of it, so one is made up for it to match the same delimiter
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.limit = 2;
+        // Boyer-Moore-Horspool shifts, so that the scan skips ahead by up to the delimiter's length at a time
+        for (int i = 0; i < skips.length; i++) {
+            skips[i] = delimiter.length;
+        }
+        for (int i = 0; i < delimiter.length - 1; i++) {
+            skips[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+        }
+    }
+
+    // moves on to the next part, skipping whatever is left of the current one (or the preamble), and reads its
+    // headers. Returns null after the last part
+    public Map<String, String> nextPart() throws IOException {
+        if (closed) {
+            return null;
+        }
+        byte[] scratch = new byte[BUFFER_SIZE];
+        while (read(scratch, 0, scratch.length) > -1) {
+            // draining
+        }
+        ensure(2);
+        if (limit - position >= 2 && buffer[position] == '-' && buffer[position + 1] == '-') {
+            closed = true;
+            return null;
+        }
+        String line = readLine(0);
+        if (!line.isBlank()) {
+            throw new IOException("Expected a line break after the multipart boundary");
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        int headersSize = 0;
+        while (!(line = readLine(headersSize)).isEmpty()) {
+            headersSize += line.length() + 2;
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        partDone = false;
+        return headers;
+    }
+
+    // reads from the current part's content, and returns -1 once its closing boundary is reached
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (partDone) {
+            return -1;
+        }
+        ensure(delimiter.length);
+        int found = indexOf(position, limit);
+        if (found == position) {
+            position += delimiter.length;
+            partDone = true;
+            return -1;
+        }
+        if (found < 0 && eof) {
+            throw new IOException("The multipart body ended before its closing boundary");
+        }
+        // without a match, the last few bytes could still be the start of a delimiter, so they are held back
+        int end = found > -1 ? found : limit - delimiter.length + 1;
+        int count = Math.min(length, end - position);
+        System.arraycopy(buffer, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    int indexOf(int from, int to) {
+        int last = delimiter.length - 1;
+        for (int i = from; i + last < to; i += skips[buffer[i + last] & 0xFF]) {
+            int j = last;
+            while (j >= 0 && buffer[i + j] == delimiter[j]) {
+                j--;
+            }
+            if (j < 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String readLine(int readSoFar) throws IOException {
+        int from = position;
+        while (true) {
+            for (int i = from; i + 1 < limit; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, position, i - position, StandardCharsets.UTF_8);
+                    position = i + 2;
+                    return line;
+                }
+            }
+            if (readSoFar + limit - position > MAX_HEADERS_SIZE) {
+                throw new IOException(String.format("The multipart headers are larger than the %d bytes allowed", MAX_HEADERS_SIZE));
+            }
+            if (eof) {
+                throw new IOException("The multipart body ended in the middle of the part headers");
+            }
+            from = Math.max(position, limit - 1) - position;
+            fill();
+            from += position;
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        while (limit - position < length && !eof) {
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            return;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.akilisha.espresso.plugin.content.multipart;
+
+import com.akilisha.espresso.api.content.IPart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+public class StreamingPart implements IPart {
+
+    final MultipartReader reader;
+    final Map<String, String> headers;
+    final String name;
+    final String fileName;
+    final long maxSize;
+    final MessageDigest digest;
+    long size;
+    boolean stale;
+
+    public StreamingPart(MultipartReader reader, Map<String, String> headers, long maxSize) {
+        this.reader = reader;
+        this.headers = headers;
+        String disposition = headers.getOrDefault("content-disposition", "");
+        this.name = dispositionParam(disposition, "name");
+        this.fileName = dispositionParam(disposition, "filename");
+        this.maxSize = maxSize;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String dispositionParam(String disposition, String param) {
+        for (String token : disposition.split(";")) {
+            int equals = token.indexOf('=');
+            if (equals > 0 && token.substring(0, equals).trim().equalsIgnoreCase(param)) {
+                String value = token.substring(equals + 1).trim();
+                return value.length() > 1 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String name() {
+        return this.name;
+    }
+
+    @Override
+    public String fileName() {
+        return this.fileName;
+    }
+
+    @Override
+    public String contentType() {
+        return this.headers.get("content-type");
+    }
+
+    @Override
+    public Map<String, String> headers() {
+        return this.headers;
+    }
+
+    // the size limit is checked and the digest updated as the bytes go past, instead of after the part is complete
+    int read(byte[] bytes, int offset, int length) throws IOException {
+        if (stale) {
+            throw new IllegalStateException(String.format("The part '%s' cannot be read after moving on to the next one", name));
+        }
+        int read = reader.read(bytes, offset, length);
+        if (read > 0) {
+            size += read;
+            if (size > maxSize) {
+                throw new IOException(String.format("The part '%s' is larger than the %d bytes allowed", name, maxSize));
+            }
+            digest.update(bytes, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public InputStream content() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return StreamingPart.this.read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return length == 0 ? 0 : StreamingPart.this.read(bytes, offset, length);
+            }
+        };
+    }
+
+    @Override
+    public Path saveTo(Path file) throws IOException {
+        byte[] bytes = new byte[MultipartReader.BUFFER_SIZE];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int read;
+            while ((read = read(bytes, 0, bytes.length)) > -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(bytes, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file); // no half written files are left behind, e.g. when the part is over the size limit
+            throw e;
+        }
+        return file;
+    }
+
+    @Override
+    public String text() throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        byte[] bytes = new byte[MultipartReader.BUFFER_SIZE];
+        int read;
+        while ((read = read(bytes, 0, bytes.length)) > -1) {
+            text.write(bytes, 0, read);
+        }
+        return text.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    @Override
+    public String digest() {
+        try {
+            // a clone, so that the digest can still be asked for before the part has been read to the end
+            return HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.eclipse.jetty.http.HttpHeader;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 import static com.akilisha.espresso.api.content.IContentType.TEXT_PLAIN;
 
@@ -32,6 +33,16 @@ public class PlainTextBodyParser implements IBodyParser {
         return request.readSync();
     }
 
+    @Override
+    public CompletionStage<Object> readAsync(IRequest request) {
+        return request.readAsync().thenApply(bytes -> bytes);
+    }
+
+    @Override
+    public boolean writes() {
+        return true;
+    }
+
     @Override
     public void write(IResponse response, Object data) {
         response.append(HttpHeader.CONTENT_TYPE.name(), contentType());
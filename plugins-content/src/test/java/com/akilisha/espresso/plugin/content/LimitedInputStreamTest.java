@@ -0,0 +1,32 @@
+package com.akilisha.espresso.plugin.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimitedInputStreamTest {
+
+    @Test
+    void checksOnlyTheContentLengthsThatWereSent() {
+        assertThatCode(() -> LimitedInputStream.checkContentLength((String) null, 10)).doesNotThrowAnyException();
+        assertThatCode(() -> LimitedInputStream.checkContentLength(" 10 ", 10)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> LimitedInputStream.checkContentLength("11", 10)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> LimitedInputStream.checkContentLength("undefined", 10)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void failsOnceMoreThanTheLimitIsRead() throws IOException {
+        try (InputStream in = new LimitedInputStream(new ByteArrayInputStream(new byte[10]), 10)) {
+            assertThat(in.readAllBytes()).hasSize(10);
+        }
+        try (InputStream in = new LimitedInputStream(new ByteArrayInputStream(new byte[11]), 10)) {
+            assertThatThrownBy(in::readAllBytes).isInstanceOf(IOException.class);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.akilisha.espresso.plugin.content.form;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FormUrlDecoderTest {
+
+    static Map<String, List<String>> decode(FormUrlDecoder decoder, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        return decoder.decode(bytes, bytes.length);
+    }
+
+    @Test
+    void decodesPercentEncodingAndPlusesAsUtf8() throws IOException {
+        Map<String, List<String>> fields = decode(new FormUrlDecoder(100, 64),
+                "name=Jane+Doe&city=S%C3%A3o%20Paulo&tags=a%2Cb,c&empty=&flag&&sym%3D=%26");
+        assertThat(fields).containsExactly(
+                Map.entry("name", List.of("Jane Doe")),
+                Map.entry("city", List.of("S\u00e3o Paulo")),
+                Map.entry("tags", List.of("a,b,c")),
+                Map.entry("empty", List.of("")),
+                Map.entry("flag", List.of("")),
+                Map.entry("sym=", List.of("&")));
+    }
+
+    @Test
+    void collectsRepeatedFieldsInOrder() throws IOException {
+        Map<String, List<String>> fields = decode(new FormUrlDecoder(100, 64), "a=1&b=2&a=3&a=4");
+        assertThat(fields.get("a")).containsExactly("1", "3", "4");
+        assertThat(fields.get("b")).containsExactly("2");
+    }
+
+    @Test
+    void rejectsMalformedEncoding() {
+        FormUrlDecoder decoder = new FormUrlDecoder(100, 64);
+        assertThatThrownBy(() -> decode(decoder, "a=%zz")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode(decoder, "a=%2")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void enforcesTheFieldCountAndKeyLengthLimits() {
+        assertThatThrownBy(() -> decode(new FormUrlDecoder(2, 64), "a=1&b=2&c=3")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode(new FormUrlDecoder(100, 4), "abcde=1")).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.akilisha.espresso.plugin.content.json;
+
+import com.akilisha.espresso.api.content.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonTokenizerTest {
+
+    @Test
+    void tokenizesNestedDocument() throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader("{\"name\": \"a\\\"b\", \"tags\": [1, 2.5, true, null]}"));
+        List<String> tokens = new ArrayList<>();
+        JsonToken token;
+        while ((token = tokenizer.next()) != null) {
+            tokens.add(tokenizer.value() != null ? token + ":" + tokenizer.value() : token.name());
+        }
+        assertThat(tokens).containsExactly("START_OBJECT", "FIELD_NAME:name", "STRING:a\"b", "FIELD_NAME:tags",
+                "START_ARRAY", "NUMBER:1", "NUMBER:2.5", "TRUE", "NULL", "END_ARRAY", "END_OBJECT");
+    }
+
+    @Test
+    void readsOneArrayElementAtATime() throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader("[{\"id\": 1, \"name\": \"caf\\u00e9\"}, {\"id\": 3000000000}]"));
+        assertThat(tokenizer.next()).isEqualTo(JsonToken.START_ARRAY);
+
+        Object first = tokenizer.readValue(tokenizer.next());
+        assertThat(first).isEqualTo(Map.of("id", 1, "name", "café"));
+
+        Object second = tokenizer.readValue(tokenizer.next());
+        assertThat(second).isEqualTo(Map.of("id", 3000000000L));
+
+        assertThat(tokenizer.next()).isEqualTo(JsonToken.END_ARRAY);
+        assertThat(tokenizer.next()).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader("[{\"id\": 1"));
+        assertThatThrownBy(() -> tokenizer.readValue(tokenizer.next())).isInstanceOf(IOException.class);
+    }
+
+    static Object parse(String json) throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader(json));
+        Object value = tokenizer.readValue(tokenizer.next());
+        assertThat(tokenizer.next()).isNull();
+        return value;
+    }
+
+    @Test
+    void acceptsSeparatorsOnlyWhereTheyBelong() throws IOException {
+        assertThat(parse(" [ ] ")).isEqualTo(List.of());
+        assertThat(parse("{}")).isEqualTo(Map.of());
+        assertThat(parse("[1, [2, {\"a\": [3]}], -0.5e+2]")).isEqualTo(List.of(1, List.of(2, Map.of("a", List.of(3))), -50.0));
+    }
+
+    @Test
+    void rejectsMissingOrMisplacedSeparators() {
+        for (String json : List.of("[1 2]", "{\"a\" 1}", "[,,1]", "[1,]", "{\"a\": 1,}", "{\"a\": 1 \"b\": 2}",
+                "{,\"a\": 1}", "[1:2]", "{\"a\", 1}", "{1: 2}", "[1]]", "[1] 2", "{\"a\": }", "[\"a\": 1]")) {
+            assertThatThrownBy(() -> parse(json)).as(json).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void readsIntegersBeyondTheRangeOfALong() throws IOException {
+        assertThat(parse("[12345678901234567890, -9223372036854775809, 9223372036854775807]")).isEqualTo(List.of(
+                new BigInteger("12345678901234567890"), new BigInteger("-9223372036854775809"), Long.MAX_VALUE));
+    }
+
+    @Test
+    void rejectsMalformedNumbersAsIOExceptions() {
+        for (String json : List.of("-", "1e", "1.2.3", "[01]", "[1.]", "[-e1]", "[1e+]")) {
+            assertThatThrownBy(() -> parse(json)).as(json).isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void rejectsNestingPastTheLimitAsAnIOException() throws IOException {
+        int limit = JsonTokenizer.MAX_DEPTH;
+        assertThat(parse("[".repeat(limit) + "]".repeat(limit))).isInstanceOf(List.class);
+        for (String json : List.of("[".repeat(limit + 1) + "]".repeat(limit + 1), "[".repeat(1_000_000),
+                "{\"a\":".repeat(100_000))) {
+            assertThatThrownBy(() -> parse(json)).isInstanceOf(IOException.class).hasMessageContaining("Nesting deeper");
+        }
+    }
+}
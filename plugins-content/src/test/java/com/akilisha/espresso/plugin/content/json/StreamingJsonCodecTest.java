@@ -0,0 +1,151 @@
+package com.akilisha.espresso.plugin.content.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingJsonCodecTest {
+
+    public record Item(String name, int qty, List<String> tags) {
+    }
+
+    public record Upload(String name, Path savedTo) {
+    }
+
+    public static class Base {
+
+        public String getZone() {
+            return "eu";
+        }
+
+        String zone;
+    }
+
+    public static class Account extends Base {
+
+        String name = "acme";
+        boolean active = true;
+        Account parent;
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public Account getParent() {
+            return parent;
+        }
+
+        public int getAge() {
+            return 3; // not backed by a field
+        }
+    }
+
+    static String write(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamingJsonCodec().write(value, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void writesNestedValues() throws IOException {
+        StreamingJsonCodec codec = new StreamingJsonCodec();
+        codec.init(Collections.emptyMap());
+
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "caf\u00e9 \"quoted\"\n");
+        value.put("count", -42L);
+        value.put("ratio", Double.NaN);
+        value.put("missing", null);
+        value.put("items", List.of(new Item("a", 2, List.of("x"))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(value, out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"text\":\"caf\u00e9 \\\"quoted\\\"\\n\",\"count\":-42,\"ratio\":null,\"missing\":null," +
+                        "\"items\":[{\"name\":\"a\",\"qty\":2,\"tags\":[\"x\"]}]}");
+    }
+
+    @Test
+    void writesValuesLargerThanTheBuffer() throws IOException {
+        StreamingJsonCodec codec = new StreamingJsonCodec();
+        String text = "\u00e9".repeat(StreamingJsonCodec.BUFFER_SIZE);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(List.of(text), out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[\"" + text + "\"]");
+    }
+
+    @Test
+    void writesBeanPropertiesInDeclarationOrder() throws IOException {
+        assertThat(write(new Account())).isEqualTo("{\"zone\":\"eu\",\"name\":\"acme\",\"active\":true,\"parent\":null,\"age\":3}");
+    }
+
+    @Test
+    void writesWhatOptionalsAndOtherHoldersHold() throws IOException {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("some", Optional.of("x"));
+        value.put("none", Optional.empty());
+        value.put("int", OptionalInt.of(7));
+        value.put("double", OptionalDouble.empty());
+        value.put("flag", new AtomicBoolean(true));
+        value.put("ref", new AtomicReference<>(List.of(1)));
+        value.put("date", new Date(0));
+        assertThat(write(value)).isEqualTo("{\"some\":\"x\",\"none\":null,\"int\":7,\"double\":null,\"flag\":true," +
+                "\"ref\":[1],\"date\":\"1970-01-01T00:00:00Z\"}");
+    }
+
+    @Test
+    void writesPathsAsTheirText() throws IOException {
+        Path path = Path.of("uploads", "data.bin").toAbsolutePath();
+        assertThat(write(path)).isEqualTo("\"" + path + "\"");
+        assertThat(write(new Upload("data", Path.of("uploads/data.bin")))).isEqualTo("{\"name\":\"data\",\"savedTo\":\"uploads/data.bin\"}");
+    }
+
+    @Test
+    void failsClearlyOnAValueThatRefersBackToItself() {
+        Account account = new Account();
+        account.parent = account;
+        assertThatThrownBy(() -> write(account)).isInstanceOf(IOException.class).hasMessageContaining("refers back to itself");
+
+        List<Object> list = new ArrayList<>();
+        list.add(list);
+        assertThatThrownBy(() -> write(list)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void reusesItsBufferWithoutCarryingAnythingOver() throws IOException {
+        StreamingJsonCodec codec = new StreamingJsonCodec();
+        List<Object> list = new ArrayList<>();
+        list.add("partly written");
+        list.add(list);
+        assertThatThrownBy(() -> codec.write(list, new ByteArrayOutputStream())).isInstanceOf(IOException.class);
+
+        StreamingJsonCodec.Output output = codec.outputs.get();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(List.of(1, "two"), out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[1,\"two\"]");
+        assertThat(codec.outputs.get()).isSameAs(output);
+        assertThat(output.out).isNull();
+    }
+}
@@ -0,0 +1,88 @@
+package com.akilisha.espresso.plugin.content.multipart;
+
+import com.akilisha.espresso.api.application.StartupEnv;
+import com.akilisha.espresso.api.request.IRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartFormDataParserTest {
+
+    static MultipartFormDataParser parser(Path dir, long maxRequestSize) {
+        MultipartFormDataParser parser = new MultipartFormDataParser();
+        parser.init(Map.of(StartupEnv.MULTIPART_LOCATION.property, dir.toString(),
+                StartupEnv.MULTIPART_MAX_REQ_SIZE.property, maxRequestSize));
+        return parser;
+    }
+
+    // a request with a multipart body, which readAsync hands over a few bytes at a time
+    @SuppressWarnings("unchecked")
+    static IRequest request(byte[] body) {
+        HttpServletRequest raw = (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> null);
+        return (IRequest) Proxy.newProxyInstance(IRequest.class.getClassLoader(), new Class<?>[]{IRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "get":
+                    return "Content-Type".equals(args[0]) ? "multipart/form-data; boundary=" + MultipartReaderTest.BOUNDARY : null;
+                case "rawRequest":
+                    return raw;
+                case "inputStream":
+                    return new ByteArrayInputStream(body);
+                case "readAsync":
+                    Consumer<ByteBuffer> onChunk = (Consumer<ByteBuffer>) args[0];
+                    try {
+                        for (int i = 0; i < body.length; i += 1000) {
+                            onChunk.accept(ByteBuffer.wrap(body, i, Math.min(1000, body.length - i)));
+                        }
+                    } catch (RuntimeException e) {
+                        ((Consumer<Throwable>) args[2]).accept(e);
+                        return null;
+                    }
+                    ((Runnable) args[1]).run();
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @Test
+    void readsTheSameFieldsAndFilesAsynchronously(@TempDir Path dir) throws Exception {
+        byte[] file = MultipartReaderTest.file();
+        byte[] body = MultipartReaderTest.body(file);
+
+        Map<?, ?> content = (Map<?, ?>) parser(dir, 10_000_000L).readAsync(request(body)).toCompletableFuture().get();
+        assertThat(content.get("title")).isEqualTo("a title, with \r\n--almost a boundary");
+        assertThat(Files.readAllBytes(Path.of(content.get("upload").toString()))).isEqualTo(file);
+        assertThat(content).isEqualTo(parser(dir, 10_000_000L).read(request(body)));
+        try (Stream<Path> left = Files.list(dir)) {
+            assertThat(left).containsExactly(dir.resolve("data.bin")); // the spooled body is gone
+        }
+    }
+
+    @Test
+    void failsABodyOverTheLimitAndLeavesNothingBehind(@TempDir Path dir) throws IOException {
+        byte[] body = MultipartReaderTest.body(MultipartReaderTest.file());
+
+        assertThatThrownBy(() -> parser(dir, 50_000L).readAsync(request(body)).toCompletableFuture().get())
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(IOException.class).hasMessageContaining("50000 bytes");
+        try (Stream<Path> left = Files.list(dir)) {
+            assertThat(left).isEmpty();
+        }
+    }
+}
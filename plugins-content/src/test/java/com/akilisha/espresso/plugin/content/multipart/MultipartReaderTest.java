@@ -0,0 +1,99 @@
+package com.akilisha.espresso.plugin.content.multipart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartReaderTest {
+
+    static final String BOUNDARY = "----form-boundary-42";
+
+    static byte[] body(byte[] file) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("preamble\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                + "a title, with \r\n--almost a boundary\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"upload\"; filename=\"data.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(file);
+        body.write(("\r\n--" + BOUNDARY + "--\r\nepilogue").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    static byte[] file() {
+        byte[] file = new byte[100_000];
+        for (int i = 0; i < file.length; i++) {
+            file[i] = (byte) (i % 7 == 0 ? '\r' : i % 11 == 0 ? '-' : i);
+        }
+        return file;
+    }
+
+    // hands out a few bytes at a time, so that boundaries get split across reads
+    static InputStream trickle(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                return super.read(buffer, offset, Math.min(length, 1 + pos % 13));
+            }
+        };
+    }
+
+    @Test
+    void streamsFieldsAndFilesBetweenTheBoundaries(@TempDir Path dir) throws Exception {
+        byte[] file = file();
+        MultipartReader reader = new MultipartReader(trickle(body(file)), BOUNDARY);
+
+        StreamingPart title = new StreamingPart(reader, reader.nextPart(), 1_000_000L);
+        assertThat(title.name()).isEqualTo("title");
+        assertThat(title.fileName()).isNull();
+        assertThat(title.text()).isEqualTo("a title, with \r\n--almost a boundary");
+
+        Map<String, String> headers = reader.nextPart();
+        StreamingPart upload = new StreamingPart(reader, headers, 1_000_000L);
+        assertThat(upload.fileName()).isEqualTo("data.bin");
+        assertThat(upload.contentType()).isEqualTo("application/octet-stream");
+        Path saved = upload.saveTo(dir.resolve("data.bin"));
+        assertThat(Files.readAllBytes(saved)).isEqualTo(file);
+        assertThat(upload.size()).isEqualTo(file.length);
+        assertThat(upload.digest()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file)));
+
+        assertThat(reader.nextPart()).isNull();
+    }
+
+    @Test
+    void skipsPartsThatAreNotRead() throws IOException {
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body(file())), BOUNDARY);
+        assertThat(reader.nextPart()).containsKey("content-disposition");
+        assertThat(reader.nextPart().get("content-type")).isEqualTo("application/octet-stream");
+        assertThat(reader.nextPart()).isNull();
+    }
+
+    @Test
+    void stopsAPartOnceItIsOverTheSizeLimit(@TempDir Path dir) throws IOException {
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(body(file())), BOUNDARY);
+        reader.nextPart();
+        StreamingPart upload = new StreamingPart(reader, reader.nextPart(), 10_000L);
+        assertThatThrownBy(() -> upload.saveTo(dir.resolve("data.bin"))).isInstanceOf(IOException.class);
+        assertThat(dir.resolve("data.bin")).doesNotExist();
+    }
+
+    @Test
+    void failsOnABodyWithoutItsClosingBoundary() {
+        byte[] truncated = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nno end").getBytes(StandardCharsets.UTF_8);
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(truncated), BOUNDARY);
+        assertThatThrownBy(() -> new StreamingPart(reader, reader.nextPart(), 100L).text()).isInstanceOf(IOException.class);
+    }
+}
@@ -2,16 +2,45 @@ package com.akilisha.espresso.plugin.view.mvel;
 
 import com.akilisha.espresso.api.application.AppSettings;
 import com.akilisha.espresso.api.view.IViewEngine;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
 import org.mvel2.templates.*;
+import org.mvel2.templates.util.TemplateOutputStream;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class MvelViewEngine implements IViewEngine {
 
-    final TemplateRegistry registry = new SimpleTemplateRegistry();
+    static final int MAX_CACHED_TEMPLATES = 512;
+
+    final NamedTemplates registry = new NamedTemplates();
+    final Map<String, CachedTemplate> templates = lruCache(registry::remove); //an evicted template can no longer be included either
+    final Map<String, CompiledTemplate> contents = lruCache(key -> {});
     private String templateDir;
+    private volatile boolean viewCache;
+
+    private static <V> Map<String, V> lruCache(Consumer<String> evicted) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                if (size() > MAX_CACHED_TEMPLATES) {
+                    evicted.accept(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
 
     @Override
     public String name() {
@@ -31,20 +60,137 @@ public class MvelViewEngine implements IViewEngine {
     @Override
     public String mergeTemplate(String fileName, Map<String, Object> model) {
         File file = Path.of(this.templateDir, fileName).toFile();
+        //the model goes in as variables, as it does when streaming, since both run the same compiled template
+        return (String) TemplateRuntime.execute(compiled(file), null, new MapVariableResolverFactory(model), registry);
+    }
+
+    @Override
+    public void precompile(String fileName) {
+        compiled(Path.of(this.templateDir, fileName).toFile());
+    }
+
+    private CompiledTemplate compiled(File file) {
+        // with the view cache on, a compiled template is used as is. Otherwise, it is only compiled again after the
+        // file has changed, so that edits still show up during development
+        String key = file.getPath();
+        CachedTemplate cached = templates.get(key);
+        if (cached != null && (viewCache || cached.lastModified == file.lastModified())) {
+            return cached.compiled;
+        }
+        long lastModified = file.lastModified();
         CompiledTemplate compiled = TemplateCompiler.compileTemplate(file);
-        registry.addNamedTemplate(file.getPath(), compiled);
-        return (String) TemplateRuntime.execute(compiled, model, registry);
+        registry.addNamedTemplate(key, compiled);
+        templates.put(key, new CachedTemplate(compiled, lastModified));
+        return compiled;
     }
 
     @Override
     public String mergeContent(String content, Map<String, Object> model) {
-        CompiledTemplate compiled = TemplateCompiler.compileTemplate(content);
+        CompiledTemplate compiled = contents.get(content);
+        if (compiled == null) {
+            compiled = TemplateCompiler.compileTemplate(content);
+            contents.put(content, compiled);
+        }
         return (String) TemplateRuntime.execute(compiled, model, registry);
     }
 
     @Override
     public String render(AppSettings settings, String template, Map<String, Object> model) {
+        this.viewCache = Boolean.parseBoolean(String.valueOf(settings.get(AppSettings.Setting.VIEW_CACHE)));
         String templateFile = String.format("%s%s", template, settings.get(AppSettings.Setting.TEMPLATES_EXT));
         return mergeTemplate(templateFile, model);
     }
+
+    @Override
+    public void render(AppSettings settings, String template, Map<String, Object> model, Writer writer) throws IOException {
+        this.viewCache = Boolean.parseBoolean(String.valueOf(settings.get(AppSettings.Setting.VIEW_CACHE)));
+        String templateFile = String.format("%s%s", template, settings.get(AppSettings.Setting.TEMPLATES_EXT));
+        File file = Path.of(this.templateDir, templateFile).toFile();
+        try {
+            TemplateRuntime.execute(compiled(file), null, new MapVariableResolverFactory(model), registry, new WriterOutputStream(writer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // lets the template runtime append straight to the writer, instead of into its own buffer
+    static class WriterOutputStream implements TemplateOutputStream {
+
+        final Writer writer;
+
+        WriterOutputStream(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public TemplateOutputStream append(CharSequence c) {
+            try {
+                writer.append(c);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        @Override
+        public TemplateOutputStream append(char[] c) {
+            try {
+                writer.write(c);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+    }
+
+    // the templates which others can include by name. The runtime looks them up while rendering, without any locking,
+    // so they are kept in a concurrent map rather than the plain one SimpleTemplateRegistry uses
+    static class NamedTemplates implements TemplateRegistry {
+
+        final Map<String, CompiledTemplate> named = new ConcurrentHashMap<>();
+
+        @Override
+        public Iterator<String> iterator() {
+            return named.keySet().iterator();
+        }
+
+        @Override
+        public Set<String> getNames() {
+            return named.keySet();
+        }
+
+        @Override
+        public boolean contains(String name) {
+            return named.containsKey(name);
+        }
+
+        @Override
+        public void addNamedTemplate(String name, CompiledTemplate template) {
+            named.put(name, template);
+        }
+
+        @Override
+        public CompiledTemplate getNamedTemplate(String name) {
+            CompiledTemplate template = named.get(name);
+            if (template == null) {
+                throw new TemplateError("no named template exists '" + name + "'");
+            }
+            return template;
+        }
+
+        void remove(String name) {
+            named.remove(name);
+        }
+    }
+
+    static class CachedTemplate {
+
+        final CompiledTemplate compiled;
+        final long lastModified;
+
+        CachedTemplate(CompiledTemplate compiled, long lastModified) {
+            this.compiled = compiled;
+            this.lastModified = lastModified;
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package com.akilisha.espresso.plugin.view.pebble;
+
+import io.pebbletemplates.pebble.cache.PebbleCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public class PebbleLruCache<K, V> implements PebbleCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    public PebbleLruCache(int maxSize) {
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        synchronized (entries) {
+            V value = entries.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        // compiled outside the lock, so that one slow template does not hold up lookups for all the others
+        V value = mappingFunction.apply(key);
+        synchronized (entries) {
+            V existing = entries.putIfAbsent(key, value);
+            return existing != null ? existing : value;
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
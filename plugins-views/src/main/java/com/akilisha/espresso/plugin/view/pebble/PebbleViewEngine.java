@@ -3,27 +3,71 @@ package com.akilisha.espresso.plugin.view.pebble;
 import com.akilisha.espresso.api.application.AppSettings;
 import com.akilisha.espresso.api.view.IViewEngine;
 import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.loader.FileLoader;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
+@Slf4j
 public class PebbleViewEngine implements IViewEngine {
 
-    private final PebbleEngine engine = new PebbleEngine.Builder().build();
-    private String templateDir;
+    public static final String TEMPLATE_CACHE_SIZE = "templateCacheSize";
+    public static final String TAG_CACHE_SIZE = "tagCacheSize";
+    public static final String STRICT_VARIABLES = "strictVariables";
+    public static final String AUTO_ESCAPING = "autoEscaping";
+
+    private final Map<String, Object> params = new HashMap<>(Map.of(
+            TEMPLATE_CACHE_SIZE, 512,
+            TAG_CACHE_SIZE, 512,
+            STRICT_VARIABLES, false,
+            AUTO_ESCAPING, true));
+    private volatile PebbleEngine engine = build(null);
+    private volatile String templateDir;
 
     @Override
     public String name() {
         return PEBBLE;
     }
 
+    @Override
+    public synchronized void init(Map<String, Object> params) {
+        log.info("Initializing {}", getClass().getName());
+        this.params.putAll(params);
+        this.engine = build(this.templateDir);
+    }
+
+    private PebbleEngine build(String templateDir) {
+        // templates are looked up by their name relative to the template dir, and not by their absolute path
+        FileLoader loader = new FileLoader();
+        if (templateDir != null) {
+            loader.setPrefix(templateDir);
+        }
+        return new PebbleEngine.Builder()
+                .loader(loader)
+                .templateCache(new PebbleLruCache<>(Integer.parseInt(params.get(TEMPLATE_CACHE_SIZE).toString())))
+                .tagCache(new PebbleLruCache<>(Integer.parseInt(params.get(TAG_CACHE_SIZE).toString())))
+                .strictVariables(Boolean.parseBoolean(params.get(STRICT_VARIABLES).toString()))
+                .autoEscaping(Boolean.parseBoolean(params.get(AUTO_ESCAPING).toString()))
+                .build();
+    }
+
     @Override
     public void templateDir(String dirName) {
-        this.templateDir = dirName;
+        // the engine, along with its caches, is only replaced when the dir actually changes
+        if (!Objects.equals(dirName, this.templateDir)) {
+            synchronized (this) {
+                if (!Objects.equals(dirName, this.templateDir)) {
+                    this.engine = build(dirName);
+                    this.templateDir = dirName;
+                }
+            }
+        }
     }
 
     @Override
@@ -31,15 +75,23 @@ public class PebbleViewEngine implements IViewEngine {
         return this.templateDir;
     }
 
+    @Override
+    public void precompile(String fileName) {
+        engine.getTemplate(fileName);
+    }
+
     @Override
     public String mergeTemplate(String fileName, Map<String, Object> model) throws IOException {
-        String filePath = Path.of(templateDir, fileName).toString();
-        PebbleTemplate compiledTemplate = engine.getTemplate(filePath);
         Writer writer = new StringWriter();
-        compiledTemplate.evaluate(writer, model);
+        mergeTemplate(fileName, model, writer);
         return writer.toString();
     }
 
+    private void mergeTemplate(String fileName, Map<String, Object> model, Writer writer) throws IOException {
+        PebbleTemplate compiledTemplate = engine.getTemplate(fileName);
+        compiledTemplate.evaluate(writer, model);
+    }
+
     @Override
     public String mergeContent(String content, Map<String, Object> model) throws IOException {
         PebbleTemplate compiledTemplate = engine.getLiteralTemplate(content);
@@ -53,4 +105,10 @@ public class PebbleViewEngine implements IViewEngine {
         String templateFile = String.format("%s%s", template, settings.get(AppSettings.Setting.TEMPLATES_EXT));
         return mergeTemplate(templateFile, model);
     }
+
+    @Override
+    public void render(AppSettings settings, String template, Map<String, Object> model, Writer writer) throws IOException {
+        String templateFile = String.format("%s%s", template, settings.get(AppSettings.Setting.TEMPLATES_EXT));
+        mergeTemplate(templateFile, model, writer);
+    }
 }
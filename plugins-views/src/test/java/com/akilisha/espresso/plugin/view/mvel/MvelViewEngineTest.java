@@ -0,0 +1,80 @@
+package com.akilisha.espresso.plugin.view.mvel;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MvelViewEngineTest {
+
+    @TempDir
+    Path dir;
+    MvelViewEngine engine;
+    AppSettings settings;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MvelViewEngine();
+        engine.templateDir(dir.toString());
+        settings = new AppSettings();
+        settings.put(AppSettings.Setting.TEMPLATES_EXT, ".mvel");
+    }
+
+    void write(String name, String content, long lastModified) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+
+    String render(String view) throws IOException {
+        StringWriter writer = new StringWriter();
+        engine.render(settings, view, Map.of("name", "Jane"), writer);
+        return writer.toString();
+    }
+
+    @Test
+    void recompilesAChangedTemplateWithTheViewCacheOff() throws IOException {
+        settings.put(AppSettings.Setting.VIEW_CACHE, false);
+        write("hello.mvel", "Hello @{name}", 1_000_000);
+        assertThat(render("hello")).isEqualTo("Hello Jane");
+        Object compiled = engine.templates.get(dir.resolve("hello.mvel").toString()).compiled;
+
+        assertThat(render("hello")).isEqualTo("Hello Jane");
+        assertThat(engine.templates.get(dir.resolve("hello.mvel").toString()).compiled).isSameAs(compiled);
+
+        write("hello.mvel", "Goodbye @{name}", 2_000_000);
+        assertThat(render("hello")).isEqualTo("Goodbye Jane");
+    }
+
+    @Test
+    void keepsTheCompiledTemplateWithTheViewCacheOn() throws IOException {
+        settings.put(AppSettings.Setting.VIEW_CACHE, true);
+        write("hello.mvel", "Hello @{name}", 1_000_000);
+        assertThat(render("hello")).isEqualTo("Hello Jane");
+
+        write("hello.mvel", "Goodbye @{name}", 2_000_000);
+        assertThat(render("hello")).isEqualTo("Hello Jane");
+        assertThat(engine.render(settings, "hello", Map.of("name", "Joe"))).isEqualTo("Hello Joe");
+    }
+
+    @Test
+    void evictedTemplatesLeaveTheRegistryToo() throws IOException {
+        for (int i = 0; i <= MvelViewEngine.MAX_CACHED_TEMPLATES; i++) {
+            write("page" + i + ".mvel", "page " + i, 1_000_000);
+            engine.precompile("page" + i + ".mvel");
+        }
+        String first = dir.resolve("page0.mvel").toString();
+        assertThat(engine.templates).hasSize(MvelViewEngine.MAX_CACHED_TEMPLATES).doesNotContainKey(first);
+        assertThat(engine.registry.contains(first)).isFalse();
+        assertThat(engine.registry.getNames()).hasSize(MvelViewEngine.MAX_CACHED_TEMPLATES);
+    }
+}
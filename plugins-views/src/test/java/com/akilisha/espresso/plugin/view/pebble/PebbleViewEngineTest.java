@@ -0,0 +1,89 @@
+package com.akilisha.espresso.plugin.view.pebble;
+
+import com.akilisha.espresso.api.application.AppSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PebbleViewEngineTest {
+
+    @TempDir
+    Path dir;
+    PebbleViewEngine engine;
+    AppSettings settings;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(dir.resolve("a/layouts"));
+        Files.createDirectories(dir.resolve("b"));
+        Files.writeString(dir.resolve("a/index.peb"), "{% include \"layouts/header.peb\" %}a says {{ name }}");
+        Files.writeString(dir.resolve("a/layouts/header.peb"), "[header] ");
+        Files.writeString(dir.resolve("b/index.peb"), "b says {{ name }}");
+        engine = new PebbleViewEngine();
+        settings = new AppSettings();
+        settings.put(AppSettings.Setting.TEMPLATES_EXT, ".peb");
+    }
+
+    @Test
+    void loadsTemplatesByNameFromTheTemplateDir() throws IOException {
+        engine.templateDir(dir.resolve("a").toString());
+        assertThat(engine.render(settings, "index", Map.of("name", "Jane"))).isEqualTo("[header] a says Jane");
+
+        StringWriter writer = new StringWriter();
+        engine.render(settings, "index", Map.of("name", "Joe"), writer);
+        assertThat(writer.toString()).isEqualTo("[header] a says Joe");
+
+        engine.templateDir(dir.resolve("b").toString());
+        assertThat(engine.render(settings, "index", Map.of("name", "Jane"))).isEqualTo("b says Jane");
+    }
+
+    @Test
+    void keepsItsCompiledTemplatesWhileTheDirStaysTheSame() throws IOException {
+        engine.templateDir(dir.resolve("b").toString());
+        engine.precompile("index.peb");
+        Files.writeString(dir.resolve("b/index.peb"), "changed");
+
+        engine.templateDir(dir.resolve("b").toString());
+        assertThat(engine.render(settings, "index", Map.of("name", "Jane"))).isEqualTo("b says Jane");
+    }
+
+    @Test
+    void appliesTheInitParams() throws IOException {
+        engine.templateDir(dir.resolve("b").toString());
+        assertThat(engine.mergeContent("{{ html }}{{ missing }}", Map.of("html", "<b>"))).isEqualTo("&lt;b&gt;");
+
+        engine.init(Map.of(PebbleViewEngine.AUTO_ESCAPING, false));
+        assertThat(engine.mergeContent("{{ html }}", Map.of("html", "<b>"))).isEqualTo("<b>");
+        assertThat(engine.render(settings, "index", Map.of("name", "Jane"))).isEqualTo("b says Jane");
+
+        engine.init(Map.of(PebbleViewEngine.STRICT_VARIABLES, true));
+        assertThatThrownBy(() -> engine.mergeContent("{{ missing }}", Map.of())).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void theLruCacheEvictsTheLeastRecentlyUsedEntry() {
+        PebbleLruCache<String, String> cache = new PebbleLruCache<>(2);
+        AtomicInteger loads = new AtomicInteger();
+        cache.computeIfAbsent("a", key -> key + loads.incrementAndGet());
+        cache.computeIfAbsent("b", key -> key + loads.incrementAndGet());
+        assertThat(cache.computeIfAbsent("a", key -> key + loads.incrementAndGet())).isEqualTo("a1"); // 'b' is now the eldest
+
+        cache.computeIfAbsent("c", key -> key + loads.incrementAndGet());
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.computeIfAbsent("a", key -> key + loads.incrementAndGet())).isEqualTo("a1");
+        assertThat(cache.computeIfAbsent("b", key -> key + loads.incrementAndGet())).isEqualTo("b4");
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+}